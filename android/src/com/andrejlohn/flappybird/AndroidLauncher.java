@@ -6,17 +6,26 @@ import com.badlogic.gdx.backends.android.AndroidApplication;
 import com.badlogic.gdx.backends.android.AndroidApplicationConfiguration;
 
 /**
- * The launcher to run the game as an android application as provided by libGDX.
+ * The launcher to run the game as an android application as provided by libGDX. The game joins a
+ * multiplayer race if the launching intent names a race server in the {@link #RACE_SERVER_EXTRA}
+ * extra, for example with <code>adb shell am start -e raceServer host:7777
+ * -n com.andrejlohn.flappybird/.AndroidLauncher</code>.
  *
  * @version %I%, %G%
  * @see     AndroidApplication
  * @see     AndroidApplicationConfiguration
  */
 public class AndroidLauncher extends AndroidApplication {
+
+	/**
+	 * The intent extra holding the race server as host name with an optional port.
+	 */
+	public static final String RACE_SERVER_EXTRA = "raceServer";
+
 	@Override
 	protected void onCreate (Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		AndroidApplicationConfiguration config = new AndroidApplicationConfiguration();
-		initialize(new FlappyDemo(), config);
+		initialize(new FlappyDemo(getIntent().getStringExtra(RACE_SERVER_EXTRA)), config);
 	}
 }
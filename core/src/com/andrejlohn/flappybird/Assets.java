@@ -0,0 +1,259 @@
+package com.andrejlohn.flappybird;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * The games asset loader. Each texture and sound is loaded only once and shared by all objects
+ * using it. Assets are reference counted and disposed as soon as the last user releases them.
+ * All loaded assets are registered with the resource tracker. The loader is static and outlives
+ * the graphics context, so it has to be emptied by {@link #dispose()} when the game ends.
+ * Opaque textures are loaded from their ETC1 compressed variant (same name with the suffix
+ * ".etc1") if it has been created by the build, else as RGB565, which does not band as visibly as
+ * four bits per channel. All other textures contain transparency and are loaded with four bits per
+ * channel, which halves their memory compared to the RGBA8888 default.
+ *
+ * @version %I%, %G%
+ * @see     Texture
+ */
+public final class Assets {
+
+    /**
+     * The textures without transparency, which are compressed by the build.
+     */
+    public static final String[] OPAQUE_TEXTURES = { "bg.png", "ground.png" };
+
+    private static final String TAG = "Assets";
+    private static final String ETC1_EXTENSION = "GL_OES_compressed_ETC1_RGB8_texture";
+
+    private static final ObjectMap<String, Texture> textures = new ObjectMap<String, Texture>();
+    private static final ObjectIntMap<Texture> references = new ObjectIntMap<Texture>();
+    private static final ObjectIntMap<Texture> sizes = new ObjectIntMap<Texture>();
+    private static final ObjectMap<String, Sound> sounds = new ObjectMap<String, Sound>();
+    private static final ObjectIntMap<Sound> soundReferences = new ObjectIntMap<Sound>();
+
+    private static long residentBytes;
+    private static long uncompressedBytes;
+
+    private Assets() {
+    }
+
+    /**
+     * Gets the texture of the given internal file. The texture is loaded on the first request,
+     * later requests return the same texture. Each call has to be matched by a call to
+     * {@link #release(Texture)}.
+     *
+     * @param fileName  the internal path of the texture
+     * @return          the shared texture
+     * @see             Texture
+     */
+    public static Texture getTexture(String fileName) {
+        Texture texture = textures.get(fileName);
+
+        if(texture == null) {
+            texture = load(fileName);
+            textures.put(fileName, texture);
+        }
+
+        references.getAndIncrement(texture, 0, 1);
+        return texture;
+    }
+
+    /**
+     * Releases a texture requested by {@link #getTexture(String)}. The texture is disposed when it
+     * is not used anymore.
+     *
+     * @param texture   the texture to release
+     * @throws          IllegalArgumentException if the texture is not in use
+     * @see             Texture#dispose()
+     */
+    public static void release(Texture texture) {
+        int count = references.get(texture, 0);
+
+        if(count == 0) {
+            throw new IllegalArgumentException("Texture is not in use");
+        }
+        if(count > 1) {
+            references.put(texture, count - 1);
+            return;
+        }
+
+        references.remove(texture, 0);
+        textures.remove(textures.findKey(texture, true));
+        residentBytes -= sizes.remove(texture, 0);
+        uncompressedBytes -= texture.getWidth() * texture.getHeight() * 4;
+        ResourceTracker.disposed(texture);
+        texture.dispose();
+    }
+
+    /**
+     * Gets the sound of the given internal file. The sound is loaded on the first request, later
+     * requests return the same sound. Each call has to be matched by a call to
+     * {@link #release(Sound)}.
+     *
+     * @param fileName  the internal path of the sound
+     * @return          the shared sound
+     * @see             com.badlogic.gdx.Audio#newSound(FileHandle)
+     */
+    public static Sound getSound(String fileName) {
+        Sound sound = sounds.get(fileName);
+
+        if(sound == null) {
+            sound = Gdx.audio.newSound(Gdx.files.internal(fileName));
+            ResourceTracker.created(sound, fileName);
+            sounds.put(fileName, sound);
+        }
+
+        soundReferences.getAndIncrement(sound, 0, 1);
+        return sound;
+    }
+
+    /**
+     * Releases a sound requested by {@link #getSound(String)}. The sound is disposed when it is not
+     * used anymore.
+     *
+     * @param sound the sound to release
+     * @throws      IllegalArgumentException if the sound is not in use
+     * @see         Sound#dispose()
+     */
+    public static void release(Sound sound) {
+        int count = soundReferences.get(sound, 0);
+
+        if(count == 0) {
+            throw new IllegalArgumentException("Sound is not in use");
+        }
+        if(count > 1) {
+            soundReferences.put(sound, count - 1);
+            return;
+        }
+
+        soundReferences.remove(sound, 0);
+        sounds.remove(sounds.findKey(sound, true));
+        ResourceTracker.disposed(sound);
+        sound.dispose();
+    }
+
+    /**
+     * Disposes all assets still loaded when the game ends. Every asset should have been released
+     * by then, so each remaining one is reported as an error. The loader is empty afterwards, so
+     * that a game started again in the same process, as on Android, does not get assets of the
+     * previous graphics context.
+     *
+     * @see Texture#dispose()
+     * @see Sound#dispose()
+     * @see ResourceTracker#disposed(Object)
+     */
+    public static void dispose() {
+        for(ObjectMap.Entry<String, Texture> entry: textures.entries()) {
+            Gdx.app.error(TAG, "Texture " + entry.key + " is still in use");
+            ResourceTracker.disposed(entry.value);
+            entry.value.dispose();
+        }
+        for(ObjectMap.Entry<String, Sound> entry: sounds.entries()) {
+            Gdx.app.error(TAG, "Sound " + entry.key + " is still in use");
+            ResourceTracker.disposed(entry.value);
+            entry.value.dispose();
+        }
+
+        textures.clear();
+        references.clear();
+        sizes.clear();
+        sounds.clear();
+        soundReferences.clear();
+        residentBytes = 0;
+        uncompressedBytes = 0;
+    }
+
+    /**
+     * Gets the number of references to all loaded textures and sounds.
+     *
+     * @return  the number of asset references
+     */
+    public static int getReferenceCount() {
+        int count = 0;
+
+        for(ObjectIntMap.Entry<Texture> entry: references.entries()) {
+            count += entry.value;
+        }
+        for(ObjectIntMap.Entry<Sound> entry: soundReferences.entries()) {
+            count += entry.value;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of bytes of texture memory used by all loaded textures.
+     *
+     * @return  the resident texture memory in bytes
+     */
+    public static long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Gets the number of bytes of texture memory all loaded textures would use as uncompressed
+     * RGBA8888 textures.
+     *
+     * @return  the uncompressed texture memory in bytes
+     */
+    public static long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * Loads a texture, preferring its compressed variant, and accounts for its memory.
+     *
+     * @param fileName  the internal path of the texture
+     * @return          the new texture
+     * @see             Pixmap.Format#RGB565
+     * @see             Pixmap.Format#RGBA4444
+     * @see             com.badlogic.gdx.graphics.glutils.ETC1TextureData
+     * @see             #isOpaque(String)
+     */
+    private static Texture load(String fileName) {
+        FileHandle compressed = Gdx.files.internal(
+                fileName.substring(0, fileName.lastIndexOf('.')) + ".etc1");
+        Texture texture;
+        int size;
+
+        if(compressed.exists()) {
+            texture = new Texture(compressed);
+            int pixels = texture.getWidth() * texture.getHeight();
+            // Without hardware support the ETC1 data is decoded to RGB565
+            size = Gdx.graphics.supportsExtension(ETC1_EXTENSION) ? pixels / 2 : pixels * 2;
+        } else {
+            Pixmap.Format format = isOpaque(fileName) ? Pixmap.Format.RGB565 : Pixmap.Format.RGBA4444;
+            texture = new Texture(Gdx.files.internal(fileName), format, false);
+            size = texture.getWidth() * texture.getHeight() * 2;
+        }
+
+        ResourceTracker.created(texture, fileName);
+        sizes.put(texture, size);
+        residentBytes += size;
+        uncompressedBytes += texture.getWidth() * texture.getHeight() * 4;
+        Gdx.app.log(TAG, "Loaded " + fileName + ", resident texture memory " + residentBytes
+                + " bytes (" + uncompressedBytes + " bytes uncompressed)");
+        return texture;
+    }
+
+    /**
+     * Checks whether a texture has no transparency.
+     *
+     * @param fileName  the internal path of the texture
+     * @return          <code>true</code> if the texture is one of {@link #OPAQUE_TEXTURES}
+     *                  <code>false</code> else
+     */
+    private static boolean isOpaque(String fileName) {
+        for(String opaque: OPAQUE_TEXTURES) {
+            if(opaque.equals(fileName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,17 +1,25 @@
 package com.andrejlohn.flappybird;
 
+import com.andrejlohn.flappybird.net.RaceClient;
+import com.andrejlohn.flappybird.sprites.AnimationRegistry;
 import com.andrejlohn.flappybird.states.GameStateManager;
 import com.andrejlohn.flappybird.states.MenuState;
-import com.andrejlohn.flappybird.states.State;
+import com.andrejlohn.flappybird.states.PauseState;
+import com.andrejlohn.flappybird.states.PlayState;
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 /**
  * The games main class. Provides the necessary constants and objects to start and run the game.
- * An instance of this class is created by the systems respective launcher.
+ * An instance of this class is created by the systems respective launcher. If the launcher names
+ * a race server, the game joins the multiplayer race on that server.
  *
  * @version %I%, %G%
  * @see     ApplicationAdapter
@@ -21,12 +29,55 @@ public class FlappyDemo extends ApplicationAdapter {
 	public static final int HEIGHT = 800;
 	public static final String TITLE = "Flappy Bird";
 
+	/**
+	 * Whether the player character uses bit-exact fixed-point physics instead of floating point
+	 * physics. The play state passes the matching body factory to the player character. Runs
+	 * are reproducible as the game world always advances in fixed time steps.
+	 */
+	public static final boolean FIXED_POINT_PHYSICS = false;
+
+	/**
+	 * Whether the game world is updated on a separate simulation thread, overlapping with the
+	 * rendering of the previous update.
+	 */
+	public static final boolean SIMULATION_THREAD = false;
+
+	/**
+	 * The local file the running game is written to when the application is paused.
+	 */
+	public static final String SNAPSHOT_FILE = "snapshot.bin";
+
     private GameStateManager gsm;
 	private SpriteBatch batch;
 	private Music music;
+	private ByteBuffer snapshot;
+	private final String raceServer;
+	private RaceClient race;
+
+    /**
+     * Creates the game for single player games.
+     */
+    public FlappyDemo() {
+        this(null);
+    }
+
+    /**
+     * Creates the game for multiplayer races on the given server.
+     *
+     * @param raceServer    the race server as host name with an optional port, <code>null</code>
+     *                      for single player games
+     * @see                 RaceClient#RaceClient(String)
+     */
+    public FlappyDemo(String raceServer) {
+        this.raceServer = raceServer;
+    }
 
     /**
-     * Sets up the games necessary objects. This is called on the games start.
+     * Sets up the games necessary objects. This is called on the games start. If the application
+     * was stopped during a game, the game is restored from its snapshot below the pause overlay
+     * instead of showing the menu. Races are not restored, as the race has moved on in the
+     * meantime. The tube course is prepared in the background right away, so that starting the
+     * first game does not stall.
      *
      * @see SpriteBatch
      * @see GameStateManager
@@ -36,45 +87,168 @@ public class FlappyDemo extends ApplicationAdapter {
      * @see GameStateManager#push(State)
      * @see Music#setLooping(boolean)
      * @see Music#setVolume(float)
+     * @see ResourceTracker#created(Object, String)
+     * @see #restore()
+     * @see RaceClient#RaceClient(String)
+     * @see PlayState#prepareCourse()
      */
     @Override
 	public void create () {
 		batch = new SpriteBatch();
+		ResourceTracker.created(batch, "sprite batch");
 		gsm = new GameStateManager();
+		snapshot = ByteBuffer.allocate(PlayState.SNAPSHOT_SIZE);
 		music = Gdx.audio.newMusic(Gdx.files.internal("music.mp3"));
+		ResourceTracker.created(music, "music.mp3");
 		music.setLooping(true);
 		music.setVolume(0.1f);
 		music.play();
         Gdx.gl.glClearColor(1, 0, 0, 1);
-        gsm.push(new MenuState(gsm));
+		PlayState.prepareCourse();
+
+		if(raceServer != null) {
+			try {
+				race = new RaceClient(raceServer);
+			} catch(IOException e) {
+				Gdx.app.error(TITLE, "Can not join the race on " + raceServer, e);
+			}
+		}
+        if(race == null) {
+            restore();
+        } else {
+            gsm.push(new MenuState(gsm, race));
+        }
 	}
 
     /**
-     * Runs a game loop of updating all game objects and rendering them to the screen.
+     * Pushes the states to start the game with. This is a play state restored from the snapshot
+     * file if there is a valid one, covered by the pause overlay like a game paused without
+     * restart, so that it does not continue unnoticed. Else it is the menu state. The snapshot
+     * file is deleted either way.
+     *
+     * @see PlayState#PlayState(GameStateManager, ByteBuffer)
+     * @see PauseState
+     * @see FileHandle#readBytes()
+     */
+    private void restore() {
+        FileHandle file = Gdx.files.local(SNAPSHOT_FILE);
+
+        if(file.exists()) {
+            try {
+                gsm.push(new PlayState(gsm, ByteBuffer.wrap(file.readBytes())));
+                gsm.push(new PauseState(gsm));
+                return;
+            } catch(IllegalArgumentException e) {
+                Gdx.app.error(TITLE, "Discarding invalid snapshot", e);
+            } finally {
+                file.delete();
+            }
+        }
+
+        gsm.push(new MenuState(gsm));
+    }
+
+    /**
+     * Gets the game state manager, so that tools driving the game, like the soak test, can
+     * inspect the running game.
+     *
+     * @return  the game state manager
+     */
+    public GameStateManager getStateManager() {
+        return gsm;
+    }
+
+    /**
+     * Runs a game loop of updating all game objects and rendering them to the screen. The race
+     * client is polled first, so that the states see the latest remote players.
      *
      * @see ApplicationAdapter#render()
+     * @see RaceClient#update(float)
      * @see GameStateManager#update(float)
      * @see GameStateManager#render(SpriteBatch)
      */
     @Override
 	public void render () {
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+		if(race != null) {
+			try {
+				race.update(Gdx.graphics.getDeltaTime());
+			} catch(IOException e) {
+				Gdx.app.error(TITLE, "Leaving the race", e);
+				race.dispose();
+			}
+		}
 		gsm.update(Gdx.graphics.getDeltaTime());
 		gsm.render(batch);
 	}
 
+    /**
+     * Writes a snapshot of the running game to the snapshot file. On Android the application
+     * process may be killed at any time while it is paused, in which case the game is restored
+     * from this snapshot on the next start. A running game is covered by the pause overlay, so
+     * that it does not continue right away when the application is resumed.
+     *
+     * @see ApplicationAdapter#pause()
+     * @see PauseState
+     * @see GameStateManager#pause()
+     * @see GameStateManager#writeSnapshot(ByteBuffer)
+     * @see FileHandle#writeBytes(byte[], int, int, boolean)
+     */
+    @Override
+    public void pause () {
+        FileHandle file = Gdx.files.local(SNAPSHOT_FILE);
+
+        gsm.pause();
+        if(gsm.peek() instanceof PlayState) {
+            gsm.push(new PauseState(gsm));
+        }
+        snapshot.clear();
+        if(gsm.writeSnapshot(snapshot)) {
+            file.writeBytes(snapshot.array(), 0, snapshot.position(), false);
+        } else {
+            file.delete();
+        }
+    }
+
+    /**
+     * Deletes the snapshot file, as the game continues from memory after a regular resume.
+     *
+     * @see ApplicationAdapter#resume()
+     * @see GameStateManager#resume()
+     */
+    @Override
+    public void resume () {
+        Gdx.files.local(SNAPSHOT_FILE).delete();
+        gsm.resume();
+    }
+
     /**
      * Removes all game objects not subject to the garbage collection from memory.
-     * Prevents memory leak.
+     * Prevents memory leak. All game states are disposed first, which stops a running simulation
+     * thread and releases their assets. As the game was ended regularly, no snapshot is kept.
      *
      * @see ApplicationAdapter#dispose()
+     * @see GameStateManager#dispose()
      * @see SpriteBatch#dispose()
      * @see Music#dispose()
+     * @see AnimationRegistry#dispose()
+     * @see Assets#dispose()
+     * @see ResourceTracker#disposed(Object)
+     * @see RaceClient#dispose()
      */
     @Override
 	public void dispose () {
 		super.dispose();
+	    gsm.dispose();
+	    ResourceTracker.disposed(batch);
 	    batch.dispose();
+	    ResourceTracker.disposed(music);
 	    music.dispose();
+	    AnimationRegistry.dispose();
+	    Assets.dispose();
+	    if(race != null) {
+	        race.dispose();
+	    }
+	    Gdx.files.local(SNAPSHOT_FILE).delete();
 	}
 }
@@ -0,0 +1,133 @@
+package com.andrejlohn.flappybird;
+
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Keeps track of all live native resources like textures, sounds and meshes. Each resource is
+ * registered on creation and unregistered on disposal, so that resources which are never disposed
+ * show up as leaks. Optionally the code location creating a resource is recorded as well, which
+ * is costly and therefore meant for testing only.
+ * The tracker is not synchronized and must only be used by the render thread.
+ *
+ * @version %I%, %G%
+ * @see     Assets
+ */
+public final class ResourceTracker {
+
+    private static final IdentityMap<Object, String> assets = new IdentityMap<Object, String>();
+    private static final IdentityMap<Object, String> sites = new IdentityMap<Object, String>();
+
+    private static boolean recordingSites;
+    private static int invalidDisposals;
+
+    private ResourceTracker() {
+    }
+
+    /**
+     * Enables or disables recording the code location creating each resource.
+     *
+     * @param recording <code>true</code> to record creation sites
+     */
+    public static void setRecordingSites(boolean recording) {
+        recordingSites = recording;
+    }
+
+    /**
+     * Registers a newly created resource.
+     *
+     * @param resource  the resource
+     * @param asset     the name of the asset the resource was created from
+     */
+    public static void created(Object resource, String asset) {
+        assets.put(resource, asset);
+        if(recordingSites) {
+            sites.put(resource, findSite());
+        }
+    }
+
+    /**
+     * Unregisters a disposed resource. Disposing a resource which is not registered, for example
+     * disposing it twice, is counted as an invalid disposal.
+     *
+     * @param resource  the resource
+     * @see             #getInvalidDisposals()
+     */
+    public static void disposed(Object resource) {
+        if(assets.remove(resource) == null) {
+            invalidDisposals++;
+        }
+        sites.remove(resource);
+    }
+
+    /**
+     * Gets the number of all live resources.
+     *
+     * @return  the number of live resources
+     */
+    public static int getLiveCount() {
+        return assets.size;
+    }
+
+    /**
+     * Gets the number of live resources created from the given asset.
+     *
+     * @param asset the name of the asset
+     * @return      the number of live resources
+     */
+    public static int getLiveCount(String asset) {
+        int count = 0;
+
+        for(String name: assets.values()) {
+            if(name.equals(asset)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of disposals of resources which were not registered.
+     *
+     * @return  the number of invalid disposals
+     */
+    public static int getInvalidDisposals() {
+        return invalidDisposals;
+    }
+
+    /**
+     * Lists the number of live resources by asset and, if recorded, creation site.
+     *
+     * @return  the report with one line per asset and creation site
+     */
+    public static String report() {
+        ObjectIntMap<String> counts = new ObjectIntMap<String>();
+
+        for(IdentityMap.Entry<Object, String> entry: assets.entries()) {
+            String site = sites.get(entry.key);
+            counts.getAndIncrement(site == null ? entry.value : entry.value + " at " + site, 0, 1);
+        }
+
+        StringBuilder report = new StringBuilder();
+        for(ObjectIntMap.Entry<String> entry: counts.entries()) {
+            report.append(entry.value).append("x ").append(entry.key).append('\n');
+        }
+        return report.toString();
+    }
+
+    /**
+     * Finds the code location outside of the resource management which creates a resource.
+     *
+     * @return  the creation site
+     */
+    private static String findSite() {
+        for(StackTraceElement element: new Throwable().getStackTrace()) {
+            String className = element.getClassName();
+            if(!className.equals(ResourceTracker.class.getName())
+                    && !className.equals(Assets.class.getName())) {
+                return element.toString();
+            }
+        }
+        return "unknown";
+    }
+}
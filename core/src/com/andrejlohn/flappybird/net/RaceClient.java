@@ -0,0 +1,459 @@
+package com.andrejlohn.flappybird.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * The client side of a multiplayer race. The client joins a race server, sends the state of the
+ * local player character and receives snapshots of the other players. The local game is not
+ * affected by the network, so that input takes effect immediately.
+ * Other players are shown slightly in the past, interpolated between the two snapshots around the
+ * current render time. This hides the jitter and loss of single packets.
+ * The client uses a non-blocking channel and never waits for the network. It has to be polled
+ * regularly by {@link #update(float)}, which is done by the render thread. If the server stays
+ * silent for a while, for example after the application was paused, the client joins again.
+ *
+ * @version %I%, %G%
+ * @see     RaceProtocol
+ * @see     RaceSnapshot
+ */
+public class RaceClient {
+
+    private static final float JOIN_INTERVAL = 0.5f;
+    private static final float SEND_INTERVAL = (float) RaceProtocol.SEND_INTERVAL / RaceProtocol.TICK_RATE;
+    // Remote players are shown 100 ms in the past
+    private static final float INTERPOLATION_DELAY = RaceProtocol.TICK_RATE / 10f;
+    private static final float CLOCK_CORRECTION = 0.05f;
+    private static final float MAX_CLOCK_DRIFT = RaceProtocol.TICK_RATE;
+    private static final float REJOIN_TIMEOUT = 3;
+
+    private final DatagramChannel channel;
+    private final ByteBuffer packet = ByteBuffer.allocate(RaceProtocol.MAX_PACKET_SIZE);
+    private final RaceSnapshot[] history = new RaceSnapshot[RaceProtocol.HISTORY];
+    private RaceSnapshot decoded = new RaceSnapshot();
+    private int latest = -1;
+
+    private int playerId = -1;
+    private long courseSeed;
+    private float joinTimer;
+    private float sendTimer;
+    private float silence;
+    private int sequence;
+    private float clock;
+
+    private int x, y;
+    private boolean alive;
+
+    private long bytesSent;
+    private long bytesReceived;
+
+    private int remoteCount;
+    private final float[] remoteX = new float[RaceProtocol.MAX_VISIBLE];
+    private final float[] remoteY = new float[RaceProtocol.MAX_VISIBLE];
+
+    /**
+     * Creates the client and starts joining the race on the given server.
+     *
+     * @param server        the server address as host name with an optional port, separated by a
+     *                      colon
+     * @throws IOException  if the server is unknown or the channel can not be opened
+     * @see                 RaceProtocol#DEFAULT_PORT
+     * @see                 DatagramChannel#connect(java.net.SocketAddress)
+     */
+    public RaceClient(String server) throws IOException {
+        int colon = server.lastIndexOf(':');
+        String host = colon < 0 ? server : server.substring(0, colon);
+        int port = colon < 0 ? RaceProtocol.DEFAULT_PORT : Integer.parseInt(server.substring(colon + 1));
+
+        for(int i=0; i<history.length; i++) {
+            history[i] = new RaceSnapshot();
+        }
+
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        if(address.isUnresolved()) {
+            throw new IOException("Unknown race server " + host);
+        }
+
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(address);
+    }
+
+    /**
+     * Receives all pending packets and sends the next packet if it is due. Until the server has
+     * welcomed the client, the join request is repeated. Afterwards the local player state is
+     * sent at the snapshot rate and the other players are interpolated.
+     *
+     * @param dt            the time since the last update
+     * @throws IOException  if the network fails
+     * @see                 #setPlayerState(float, float, boolean)
+     */
+    public void update(float dt) throws IOException {
+        if(!channel.isOpen()) {
+            return;
+        }
+
+        try {
+            receive();
+
+            if(playerId < 0) {
+                joinTimer -= dt;
+                if(joinTimer <= 0) {
+                    packet.clear();
+                    packet.put(RaceProtocol.JOIN);
+                    RaceProtocol.putVarInt(packet, RaceProtocol.VERSION);
+                    send();
+                    joinTimer = JOIN_INTERVAL;
+                }
+                return;
+            }
+
+            silence += dt;
+            if(silence > REJOIN_TIMEOUT) {
+                rejoin();
+                return;
+            }
+
+            sendTimer -= dt;
+            if(sendTimer <= 0) {
+                sendState();
+                sendTimer = Math.max(sendTimer + SEND_INTERVAL, 0);
+            }
+        } catch(PortUnreachableException e) {
+            // The server is not running (yet), joining is retried
+        }
+
+        if(latest >= 0) {
+            advanceClock(dt);
+            interpolate(clock - INTERPOLATION_DELAY);
+        }
+    }
+
+    /**
+     * Reads all datagrams waiting in the channel.
+     *
+     * @throws IOException  if the network fails
+     * @see                 DatagramChannel#read(ByteBuffer)
+     */
+    private void receive() throws IOException {
+        while(true) {
+            packet.clear();
+            int bytes = channel.read(packet);
+            if(bytes <= 0) {
+                return;
+            }
+            bytesReceived += bytes;
+            packet.flip();
+
+            try {
+                byte type = packet.get();
+                if(type == RaceProtocol.WELCOME && playerId < 0) {
+                    int id = RaceProtocol.getVarInt(packet);
+                    courseSeed = packet.getLong();
+                    playerId = id;
+                } else if(type == RaceProtocol.SNAPSHOT && playerId >= 0) {
+                    receiveSnapshot();
+                }
+            } catch(BufferUnderflowException e) {
+                // Truncated packets are dropped like lost packets
+            } catch(IllegalArgumentException e) {
+                // Malformed packets are dropped like lost packets
+            }
+        }
+    }
+
+    /**
+     * Decodes a snapshot against its baseline and appends it to the snapshot history. Snapshots
+     * older than the latest one, which arrived out of order, are dropped.
+     *
+     * @see RaceSnapshot#readFrom(ByteBuffer, RaceSnapshot)
+     */
+    private void receiveSnapshot() {
+        int position = packet.position();
+        int tick = RaceProtocol.getVarInt(packet);
+        int baselineTick = RaceProtocol.getVarInt(packet);
+        packet.position(position);
+
+        if(latest >= 0 && tick <= history[latest].getTick()) {
+            return;
+        }
+
+        RaceSnapshot baseline = null;
+        if(baselineTick != 0) {
+            baseline = find(baselineTick);
+            if(baseline == null) {
+                return;
+            }
+        }
+
+        // Decoded separately, as the baseline may be the slot to be replaced
+        decoded.readFrom(packet, baseline);
+        int next = (latest + 1) % history.length;
+        RaceSnapshot replaced = history[next];
+        history[next] = decoded;
+        decoded = replaced;
+        latest = next;
+        silence = 0;
+    }
+
+    /**
+     * Forgets the current race membership and all snapshots, so that the client joins again with
+     * the next update.
+     */
+    private void rejoin() {
+        playerId = -1;
+        joinTimer = 0;
+        silence = 0;
+        latest = -1;
+        remoteCount = 0;
+        for(RaceSnapshot snapshot: history) {
+            snapshot.clear(0);
+        }
+    }
+
+    /**
+     * Finds a snapshot in the history.
+     *
+     * @param tick  the tick of the snapshot
+     * @return      the snapshot, <code>null</code> if it is not in the history anymore
+     */
+    private RaceSnapshot find(int tick) {
+        for(RaceSnapshot snapshot: history) {
+            if(snapshot.getTick() == tick) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sends the local player state together with the tick of the latest snapshot, which the
+     * server uses as baseline for the next snapshot.
+     *
+     * @throws IOException  if the network fails
+     */
+    private void sendState() throws IOException {
+        packet.clear();
+        packet.put(RaceProtocol.STATE);
+        RaceProtocol.putVarInt(packet, playerId);
+        RaceProtocol.putVarInt(packet, ++sequence);
+        RaceProtocol.putVarInt(packet, latest < 0 ? 0 : history[latest].getTick());
+        RaceProtocol.putSignedVarInt(packet, x);
+        RaceProtocol.putSignedVarInt(packet, y);
+        packet.put((byte) (alive ? 1 : 0));
+        send();
+    }
+
+    /**
+     * Sends the packet buffer as a single datagram.
+     *
+     * @throws IOException  if the network fails
+     * @see                 DatagramChannel#write(ByteBuffer)
+     */
+    private void send() throws IOException {
+        packet.flip();
+        bytesSent += channel.write(packet);
+    }
+
+    /**
+     * Advances the estimated server tick by the time passed. The estimate is pulled towards the
+     * latest snapshot, so that it follows the server without jumps, unless it is far off.
+     *
+     * @param dt    the time since the last update
+     */
+    private void advanceClock(float dt) {
+        int latestTick = history[latest].getTick();
+        float drift = latestTick - (clock + dt * RaceProtocol.TICK_RATE);
+
+        if(Math.abs(drift) > MAX_CLOCK_DRIFT) {
+            clock = latestTick;
+        } else {
+            clock += dt * RaceProtocol.TICK_RATE + drift * CLOCK_CORRECTION;
+        }
+    }
+
+    /**
+     * Interpolates the positions of all living remote players between the snapshots before and
+     * after the given time. Players who just came back to life are not interpolated, as they
+     * start over at the beginning of the course.
+     *
+     * @param tick  the render time in server ticks
+     * @see         RaceSnapshot#indexOf(int)
+     */
+    private void interpolate(float tick) {
+        RaceSnapshot from = null, to = null;
+
+        for(RaceSnapshot snapshot: history) {
+            if(snapshot.getTick() == 0) {
+                continue;
+            }
+            if(snapshot.getTick() <= tick) {
+                if(from == null || snapshot.getTick() > from.getTick()) {
+                    from = snapshot;
+                }
+            } else if(to == null || snapshot.getTick() < to.getTick()) {
+                to = snapshot;
+            }
+        }
+        if(to == null) {
+            to = from;
+        }
+        if(from == null) {
+            from = to;
+        }
+
+        float alpha = to == from ? 1 : (tick - from.getTick()) / (to.getTick() - from.getTick());
+        remoteCount = 0;
+        for(int i=0; i<to.getCount(); i++) {
+            if(!to.isAlive(i)) {
+                continue;
+            }
+
+            float toX = RaceProtocol.dequantize(to.getX(i));
+            float toY = RaceProtocol.dequantize(to.getY(i));
+            int j = from.indexOf(to.getId(i));
+            if(j >= 0 && from.isAlive(j)) {
+                float fromX = RaceProtocol.dequantize(from.getX(j));
+                float fromY = RaceProtocol.dequantize(from.getY(j));
+                remoteX[remoteCount] = fromX + (toX - fromX) * alpha;
+                remoteY[remoteCount] = fromY + (toY - fromY) * alpha;
+            } else {
+                remoteX[remoteCount] = toX;
+                remoteY[remoteCount] = toY;
+            }
+            remoteCount++;
+        }
+    }
+
+    /**
+     * Sets the state of the local player character, which is sent with the next update.
+     *
+     * @param x     the x-coordinate
+     * @param y     the y-coordinate
+     * @param alive whether the character is still alive
+     */
+    public void setPlayerState(float x, float y, boolean alive) {
+        this.x = RaceProtocol.quantize(x);
+        this.y = RaceProtocol.quantize(y);
+        this.alive = alive;
+    }
+
+    /**
+     * Checks whether the server has welcomed the client to the race.
+     *
+     * @return  <code>true</code> if the client takes part in the race
+     *          <code>false</code> else
+     */
+    public boolean isJoined() {
+        return playerId >= 0 && channel.isOpen();
+    }
+
+    /**
+     * Checks whether the client is still trying to take part in the race. A client stops after
+     * it has been disposed, for example when the network failed.
+     *
+     * @return  <code>true</code> if the client has not been disposed
+     *          <code>false</code> else
+     */
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Gets the id of the local player.
+     *
+     * @return  the player id, -1 if not joined yet
+     */
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * Gets the seed of the tube course shared by all players.
+     *
+     * @return  the course seed
+     */
+    public long getCourseSeed() {
+        return courseSeed;
+    }
+
+    /**
+     * Gets the number of living remote players currently shown.
+     *
+     * @return  the number of remote players
+     */
+    public int getRemoteCount() {
+        return remoteCount;
+    }
+
+    /**
+     * Gets the interpolated x-coordinate of a remote player.
+     *
+     * @param index the index of the remote player
+     * @return      the x-coordinate
+     */
+    public float getRemoteX(int index) {
+        return remoteX[index];
+    }
+
+    /**
+     * Gets the interpolated y-coordinate of a remote player.
+     *
+     * @param index the index of the remote player
+     * @return      the y-coordinate
+     */
+    public float getRemoteY(int index) {
+        return remoteY[index];
+    }
+
+    /**
+     * Gets the number of bytes sent so far, without protocol headers.
+     *
+     * @return  the number of bytes sent
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Gets the number of bytes received so far, without protocol headers.
+     *
+     * @return  the number of bytes received
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Leaves the race and closes the channel.
+     *
+     * @see DatagramChannel#close()
+     */
+    public void dispose() {
+        if(!channel.isOpen()) {
+            return;
+        }
+
+        try {
+            if(playerId >= 0) {
+                packet.clear();
+                packet.put(RaceProtocol.LEAVE);
+                RaceProtocol.putVarInt(packet, playerId);
+                send();
+            }
+        } catch(IOException e) {
+            // The server drops the player after a timeout anyway
+        } finally {
+            remoteCount = 0;
+            try {
+                channel.close();
+            } catch(IOException e) {
+                // Nothing left to clean up
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.andrejlohn.flappybird.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The UDP protocol of the multiplayer race. Every datagram starts with a one byte packet type.
+ * Clients join a race and then continuously send the state of their player character, the server
+ * answers with snapshots of the other players in the race.
+ * Positions are quantized to an eighth of a pixel and all numbers are written as variable length
+ * integers, so that small values and small differences only take a single byte.
+ *
+ * @version %I%, %G%
+ * @see     RaceClient
+ * @see     RaceSnapshot
+ */
+public final class RaceProtocol {
+
+    public static final int DEFAULT_PORT = 7777;
+    public static final int VERSION = 1;
+
+    /** Client to server: version. Sent until the server welcomes the client. */
+    public static final byte JOIN = 1;
+    /** Server to client: player id, course seed. */
+    public static final byte WELCOME = 2;
+    /** Client to server: player id, sequence, acknowledged snapshot tick, x, y, alive. */
+    public static final byte STATE = 3;
+    /** Server to client: a snapshot of the other players, see {@link RaceSnapshot}. */
+    public static final byte SNAPSHOT = 4;
+    /** Client to server: player id. Sent once when the client leaves the race. */
+    public static final byte LEAVE = 5;
+
+    /** The number of server ticks per second. Snapshot ticks are counted in server ticks. */
+    public static final int TICK_RATE = 60;
+    /** The number of server ticks between two snapshots and between two client states. */
+    public static final int SEND_INTERVAL = 3;
+    /** The maximum number of other players in a snapshot. */
+    public static final int MAX_VISIBLE = 16;
+    /** The number of snapshots kept as delta baselines. */
+    public static final int HISTORY = 32;
+    /** The maximum size in bytes of a datagram. */
+    public static final int MAX_PACKET_SIZE = 512;
+
+    private static final float QUANTUM = 8;
+
+    private RaceProtocol() {
+    }
+
+    /**
+     * Quantizes a coordinate for the transmission.
+     *
+     * @param coordinate    the coordinate in pixels
+     * @return              the coordinate in eighths of a pixel
+     */
+    public static int quantize(float coordinate) {
+        return Math.round(coordinate * QUANTUM);
+    }
+
+    /**
+     * Restores a quantized coordinate.
+     *
+     * @param quantized the coordinate in eighths of a pixel
+     * @return          the coordinate in pixels
+     */
+    public static float dequantize(int quantized) {
+        return quantized / QUANTUM;
+    }
+
+    /**
+     * Writes a non-negative integer with seven bits per byte, least significant bits first. The
+     * highest bit of each byte marks whether more bytes follow.
+     *
+     * @param buffer    the packet buffer
+     * @param value     the non-negative integer
+     * @see             #getVarInt(ByteBuffer)
+     */
+    public static void putVarInt(ByteBuffer buffer, int value) {
+        while((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads a non-negative integer written by {@link #putVarInt(ByteBuffer, int)}.
+     *
+     * @param buffer    the packet buffer
+     * @return          the non-negative integer
+     * @throws          IllegalArgumentException if the integer is longer than five bytes
+     */
+    public static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+
+        for(int shift=0; shift<35; shift+=7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if(b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable length integer");
+    }
+
+    /**
+     * Writes a signed integer with zigzag encoding, so that values close to zero are short
+     * regardless of their sign.
+     *
+     * @param buffer    the packet buffer
+     * @param value     the signed integer
+     * @see             #getSignedVarInt(ByteBuffer)
+     */
+    public static void putSignedVarInt(ByteBuffer buffer, int value) {
+        putVarInt(buffer, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Reads a signed integer written by {@link #putSignedVarInt(ByteBuffer, int)}.
+     *
+     * @param buffer    the packet buffer
+     * @return          the signed integer
+     */
+    public static int getSignedVarInt(ByteBuffer buffer) {
+        int value = getVarInt(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,234 @@
+package com.andrejlohn.flappybird.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The state of the other players in a race as sent by the server at a given tick. Players are
+ * sorted by their id and positions are quantized.
+ * Snapshots are delta compressed: every player is written as the difference to the same player in
+ * a baseline snapshot, which is the latest snapshot the client has acknowledged. As players move
+ * only a few pixels between two snapshots, most differences fit into a single byte. Players which
+ * are not part of the baseline are written as differences to the origin.
+ *
+ * @version %I%, %G%
+ * @see     RaceProtocol#SNAPSHOT
+ */
+public class RaceSnapshot {
+
+    /** The maximum size in bytes of a snapshot written by {@link #writeTo(ByteBuffer, RaceSnapshot)}. */
+    public static final int MAX_SIZE = 3 * 5 + RaceProtocol.MAX_VISIBLE * 3 * 5;
+
+    private int tick;
+    private int count;
+    private final int[] ids = new int[RaceProtocol.MAX_VISIBLE];
+    private final int[] x = new int[RaceProtocol.MAX_VISIBLE];
+    private final int[] y = new int[RaceProtocol.MAX_VISIBLE];
+    private final boolean[] alive = new boolean[RaceProtocol.MAX_VISIBLE];
+
+    /**
+     * Empties the snapshot and assigns it to a new tick.
+     *
+     * @param tick  the server tick, starting with 1
+     */
+    public void clear(int tick) {
+        this.tick = tick;
+        count = 0;
+    }
+
+    /**
+     * Adds a player to the snapshot. Players have to be added in ascending order of their ids.
+     *
+     * @param id        the player id
+     * @param x         the quantized x-coordinate
+     * @param y         the quantized y-coordinate
+     * @param alive     whether the player character is still alive
+     * @throws          IllegalStateException if the snapshot is full
+     */
+    public void add(int id, int x, int y, boolean alive) {
+        if(count == ids.length) {
+            throw new IllegalStateException("Snapshot is full");
+        }
+
+        ids[count] = id;
+        this.x[count] = x;
+        this.y[count] = y;
+        this.alive[count] = alive;
+        count++;
+    }
+
+    /**
+     * Makes this snapshot a copy of another one.
+     *
+     * @param other the snapshot to copy
+     */
+    public void set(RaceSnapshot other) {
+        tick = other.tick;
+        count = other.count;
+        System.arraycopy(other.ids, 0, ids, 0, count);
+        System.arraycopy(other.x, 0, x, 0, count);
+        System.arraycopy(other.y, 0, y, 0, count);
+        System.arraycopy(other.alive, 0, alive, 0, count);
+    }
+
+    /**
+     * Writes the snapshot as difference to a baseline.
+     *
+     * @param buffer    the packet buffer
+     * @param baseline  the snapshot acknowledged by the receiver, <code>null</code> if none
+     * @see             RaceProtocol#putSignedVarInt(ByteBuffer, int)
+     */
+    public void writeTo(ByteBuffer buffer, RaceSnapshot baseline) {
+        RaceProtocol.putVarInt(buffer, tick);
+        RaceProtocol.putVarInt(buffer, baseline == null ? 0 : baseline.tick);
+        RaceProtocol.putVarInt(buffer, count);
+
+        int previousId = -1;
+        int base = 0;
+        for(int i=0; i<count; i++) {
+            int baseX = 0, baseY = 0;
+            if(baseline != null) {
+                while(base < baseline.count && baseline.ids[base] < ids[i]) {
+                    base++;
+                }
+                if(base < baseline.count && baseline.ids[base] == ids[i]) {
+                    baseX = baseline.x[base];
+                    baseY = baseline.y[base];
+                }
+            }
+
+            RaceProtocol.putVarInt(buffer, ids[i] - previousId - 1);
+            RaceProtocol.putSignedVarInt(buffer, x[i] - baseX);
+            // The lowest bit carries the alive flag
+            RaceProtocol.putSignedVarInt(buffer, ((y[i] - baseY) << 1) | (alive[i] ? 1 : 0));
+            previousId = ids[i];
+        }
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeTo(ByteBuffer, RaceSnapshot)}.
+     *
+     * @param buffer    the packet buffer
+     * @param baseline  the baseline the snapshot was written against, <code>null</code> if none
+     * @throws          IllegalArgumentException if the snapshot is malformed or was written
+     *                  against another baseline
+     */
+    public void readFrom(ByteBuffer buffer, RaceSnapshot baseline) {
+        int newTick = RaceProtocol.getVarInt(buffer);
+        int baselineTick = RaceProtocol.getVarInt(buffer);
+        int newCount = RaceProtocol.getVarInt(buffer);
+
+        if(baselineTick != (baseline == null ? 0 : baseline.tick)) {
+            throw new IllegalArgumentException("Snapshot of another baseline");
+        }
+        if(newCount > ids.length) {
+            throw new IllegalArgumentException("Too many players in snapshot");
+        }
+
+        tick = newTick;
+        count = newCount;
+        int previousId = -1;
+        int base = 0;
+        for(int i=0; i<count; i++) {
+            ids[i] = previousId + 1 + RaceProtocol.getVarInt(buffer);
+            int baseX = 0, baseY = 0;
+            if(baseline != null) {
+                while(base < baseline.count && baseline.ids[base] < ids[i]) {
+                    base++;
+                }
+                if(base < baseline.count && baseline.ids[base] == ids[i]) {
+                    baseX = baseline.x[base];
+                    baseY = baseline.y[base];
+                }
+            }
+
+            x[i] = baseX + RaceProtocol.getSignedVarInt(buffer);
+            int yAlive = RaceProtocol.getSignedVarInt(buffer);
+            y[i] = baseY + (yAlive >> 1);
+            alive[i] = (yAlive & 1) != 0;
+            previousId = ids[i];
+        }
+    }
+
+    /**
+     * Gets the index of a player within the snapshot.
+     *
+     * @param id    the player id
+     * @return      the index, -1 if the player is not part of the snapshot
+     */
+    public int indexOf(int id) {
+        int low = 0, high = count - 1;
+
+        while(low <= high) {
+            int mid = (low + high) >>> 1;
+            if(ids[mid] < id) {
+                low = mid + 1;
+            } else if(ids[mid] > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the server tick of the snapshot.
+     *
+     * @return  the tick
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the number of players in the snapshot.
+     *
+     * @return  the number of players
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the id of a player.
+     *
+     * @param index the index of the player within the snapshot
+     * @return      the player id
+     */
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Gets the quantized x-coordinate of a player.
+     *
+     * @param index the index of the player within the snapshot
+     * @return      the x-coordinate in eighths of a pixel
+     * @see         RaceProtocol#dequantize(int)
+     */
+    public int getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * Gets the quantized y-coordinate of a player.
+     *
+     * @param index the index of the player within the snapshot
+     * @return      the y-coordinate in eighths of a pixel
+     * @see         RaceProtocol#dequantize(int)
+     */
+    public int getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * Checks whether the character of a player is still alive.
+     *
+     * @param index the index of the player within the snapshot
+     * @return      <code>true</code> if the character is alive
+     *              <code>false</code> else
+     */
+    public boolean isAlive(int index) {
+        return alive[index];
+    }
+}
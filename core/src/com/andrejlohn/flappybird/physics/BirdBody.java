@@ -0,0 +1,99 @@
+package com.andrejlohn.flappybird.physics;
+
+import com.badlogic.gdx.math.Rectangle;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The physical body of the player character. The body is subject to gravitational pull, moves
+ * forwards with a fixed speed and can be pushed upwards. The physics are kept separate from the
+ * characters textures and sounds, so that they can be exchanged and run without graphics.
+ *
+ * @version %I%, %G%
+ * @see     FloatBirdBody
+ * @see     FixedBirdBody
+ */
+public abstract class BirdBody {
+
+    public static final int GRAVITY = -15;
+    public static final int MOVEMENT = 100;
+    public static final int JUMP_VELOCITY = 250;
+
+    /**
+     * The maximum size in bytes of a body written by {@link #writeTo(ByteBuffer)}.
+     */
+    public static final int SNAPSHOT_SIZE = 24;
+
+    protected final int width;
+    protected final int height;
+
+    /**
+     * Creates the body with the given size.
+     *
+     * @param width     the width of the body
+     * @param height    the height of the body
+     */
+    protected BirdBody(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Moves the body according to its velocity and the time passed since the last update. The
+     * body can not move downwards below the ground level (y=0).
+     *
+     * @param dt    the time since the last update
+     */
+    public abstract void step(float dt);
+
+    /**
+     * Pushes the body upwards.
+     */
+    public abstract void jump();
+
+    /**
+     * Checks whether the body overlaps a rectangle.
+     *
+     * @param rectangle the rectangle
+     * @return          <code>true</code> if the body and the rectangle overlap
+     *                  <code>false</code> else
+     */
+    public abstract boolean overlaps(Rectangle rectangle);
+
+    /**
+     * Checks whether the body has reached the given height or fallen below it.
+     *
+     * @param y the height
+     * @return  <code>true</code> if the bodies y-coordinate is at most the given height
+     *          <code>false</code> else
+     */
+    public abstract boolean isAtOrBelow(int y);
+
+    /**
+     * Gets the x-coordinate of the body.
+     *
+     * @return  the x-coordinate
+     */
+    public abstract float getX();
+
+    /**
+     * Gets the y-coordinate of the body.
+     *
+     * @return  the y-coordinate
+     */
+    public abstract float getY();
+
+    /**
+     * Writes the bodies position and velocity to a world snapshot.
+     *
+     * @param buffer    the snapshot buffer
+     */
+    public abstract void writeTo(ByteBuffer buffer);
+
+    /**
+     * Restores the bodies position and velocity from a world snapshot.
+     *
+     * @param buffer    the snapshot buffer
+     */
+    public abstract void readFrom(ByteBuffer buffer);
+}
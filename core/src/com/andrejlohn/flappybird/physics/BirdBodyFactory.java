@@ -0,0 +1,23 @@
+package com.andrejlohn.flappybird.physics;
+
+/**
+ * Creates the physical bodies of player characters, which allows to choose the physics
+ * implementation independent of the characters themselves.
+ *
+ * @version %I%, %G%
+ * @see     FloatBirdBody#FACTORY
+ * @see     FixedBirdBody#FACTORY
+ */
+public interface BirdBodyFactory {
+
+    /**
+     * Creates a body at rest at the given position.
+     *
+     * @param x         the starting x-coordinate
+     * @param y         the starting y-coordinate
+     * @param width     the width of the body
+     * @param height    the height of the body
+     * @return          the new body
+     */
+    BirdBody create(int x, int y, int width, int height);
+}
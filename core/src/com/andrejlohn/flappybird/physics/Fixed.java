@@ -0,0 +1,62 @@
+package com.andrejlohn.flappybird.physics;
+
+/**
+ * Helper functions for fixed-point arithmetic with 16 fractional bits. Fixed-point values are
+ * plain integers, so all calculations with them give bit-exact results on every platform.
+ * Positions are stored as <code>long</code> values to avoid overflows in long running games.
+ *
+ * @version %I%, %G%
+ * @see     FixedBirdBody
+ */
+public final class Fixed {
+
+    public static final int FRACTION_BITS = 16;
+    public static final int ONE = 1 << FRACTION_BITS;
+
+    private Fixed() {
+    }
+
+    /**
+     * Converts an integer to a fixed-point value.
+     *
+     * @param value the integer
+     * @return      the fixed-point value
+     */
+    public static long fromInt(int value) {
+        return (long) value << FRACTION_BITS;
+    }
+
+    /**
+     * Converts a float to a fixed-point value. Fractions smaller than the fixed-point resolution
+     * are truncated. As the multiplication with a power of two is exact, the conversion of the
+     * same float always gives the same result.
+     *
+     * @param value the float
+     * @return      the fixed-point value
+     */
+    public static long fromFloat(float value) {
+        return (long) (value * ONE);
+    }
+
+    /**
+     * Converts a fixed-point value to a float. This is only meant for rendering, all game logic
+     * uses the fixed-point value itself.
+     *
+     * @param value the fixed-point value
+     * @return      the float
+     */
+    public static float toFloat(long value) {
+        return value / (float) ONE;
+    }
+
+    /**
+     * Multiplies two fixed-point values.
+     *
+     * @param a the first factor
+     * @param b the second factor
+     * @return  the product
+     */
+    public static long mul(long a, long b) {
+        return (a * b) >> FRACTION_BITS;
+    }
+}
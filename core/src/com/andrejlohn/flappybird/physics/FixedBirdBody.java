@@ -0,0 +1,122 @@
+package com.andrejlohn.flappybird.physics;
+
+import com.badlogic.gdx.math.Rectangle;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A body of the player character calculating with fixed-point integers only. Given the same
+ * sequence of update times and jumps, the body moves bit-exactly the same on every platform, which
+ * allows to verify recorded games anywhere.
+ * The tubes are placed at integer coordinates, so collisions with them are checked exactly as
+ * well.
+ *
+ * @version %I%, %G%
+ * @see     BirdBody
+ * @see     Fixed
+ */
+public class FixedBirdBody extends BirdBody {
+
+    /**
+     * Creates fixed-point bodies.
+     */
+    public static final BirdBodyFactory FACTORY = new BirdBodyFactory() {
+        @Override
+        public BirdBody create(int x, int y, int width, int height) {
+            return new FixedBirdBody(x, y, width, height);
+        }
+    };
+
+    private static final long GRAVITY_FIXED = Fixed.fromInt(GRAVITY);
+    private static final long JUMP_VELOCITY_FIXED = Fixed.fromInt(JUMP_VELOCITY);
+
+    private long x;
+    private long y;
+    private long velocityY;
+
+    /**
+     * Creates the body at a specified starting position. The starting velocity is zero.
+     *
+     * @param x         the starting position x-coordinate
+     * @param y         the starting position y-coordinate
+     * @param width     the width of the body
+     * @param height    the height of the body
+     * @see             Fixed#fromInt(int)
+     */
+    public FixedBirdBody(int x, int y, int width, int height) {
+        super(width, height);
+        this.x = Fixed.fromInt(x);
+        this.y = Fixed.fromInt(y);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Fixed#fromFloat(float)
+     * @see Fixed#mul(long, long)
+     */
+    @Override
+    public void step(float dt) {
+        long fixedDt = Fixed.fromFloat(dt);
+
+        if(y > 0) {
+            velocityY += GRAVITY_FIXED;
+        }
+
+        x += MOVEMENT * fixedDt;
+        y += Fixed.mul(velocityY, fixedDt);
+
+        if(y < 0) {
+            y = 0;
+        }
+    }
+
+    @Override
+    public void jump() {
+        velocityY = JUMP_VELOCITY_FIXED;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The rectangle is expected to have integer coordinates and size.
+     */
+    @Override
+    public boolean overlaps(Rectangle rectangle) {
+        long left = Fixed.fromInt((int) rectangle.x);
+        long bottom = Fixed.fromInt((int) rectangle.y);
+
+        return x < left + Fixed.fromInt((int) rectangle.width)
+                && x + Fixed.fromInt(width) > left
+                && y < bottom + Fixed.fromInt((int) rectangle.height)
+                && y + Fixed.fromInt(height) > bottom;
+    }
+
+    @Override
+    public boolean isAtOrBelow(int y) {
+        return this.y <= Fixed.fromInt(y);
+    }
+
+    @Override
+    public float getX() {
+        return Fixed.toFloat(x);
+    }
+
+    @Override
+    public float getY() {
+        return Fixed.toFloat(y);
+    }
+
+    @Override
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putLong(x);
+        buffer.putLong(y);
+        buffer.putLong(velocityY);
+    }
+
+    @Override
+    public void readFrom(ByteBuffer buffer) {
+        x = buffer.getLong();
+        y = buffer.getLong();
+        velocityY = buffer.getLong();
+    }
+}
@@ -0,0 +1,117 @@
+package com.andrejlohn.flappybird.physics;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector3;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The default body of the player character, calculating with floating point vectors. Results may
+ * slightly differ between platforms.
+ *
+ * @version %I%, %G%
+ * @see     BirdBody
+ */
+public class FloatBirdBody extends BirdBody {
+
+    /**
+     * Creates floating point bodies.
+     */
+    public static final BirdBodyFactory FACTORY = new BirdBodyFactory() {
+        @Override
+        public BirdBody create(int x, int y, int width, int height) {
+            return new FloatBirdBody(x, y, width, height);
+        }
+    };
+
+    private Vector3 position;
+    private Vector3 velocity;
+    private Rectangle bounds;
+
+    /**
+     * Creates the body at a specified starting position. The starting velocity is zero.
+     *
+     * @param x         the starting position x-coordinate
+     * @param y         the starting position y-coordinate
+     * @param width     the width of the body
+     * @param height    the height of the body
+     * @see             Vector3
+     * @see             Rectangle
+     */
+    public FloatBirdBody(int x, int y, int width, int height) {
+        super(width, height);
+        position = new Vector3(x, y, 0);
+        velocity = new Vector3(0, 0, 0);
+        bounds = new Rectangle(x, y, width, height);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Vector3#add(Vector3)
+     * @see Vector3#scl(float)
+     * @see Rectangle#setPosition(float, float)
+     */
+    @Override
+    public void step(float dt) {
+        if(position.y > 0) {
+            velocity.add(0, GRAVITY, 0);
+        }
+
+        velocity.scl(dt);
+        position.add(MOVEMENT * dt, velocity.y, 0);
+
+        if(position.y < 0) {
+            position.y = 0;
+        }
+
+        velocity.scl(1/dt);
+
+        bounds.setPosition(position.x, position.y);
+    }
+
+    @Override
+    public void jump() {
+        velocity.y = JUMP_VELOCITY;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Rectangle#overlaps(Rectangle)
+     */
+    @Override
+    public boolean overlaps(Rectangle rectangle) {
+        return bounds.overlaps(rectangle);
+    }
+
+    @Override
+    public boolean isAtOrBelow(int y) {
+        return position.y <= y;
+    }
+
+    @Override
+    public float getX() {
+        return position.x;
+    }
+
+    @Override
+    public float getY() {
+        return position.y;
+    }
+
+    @Override
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putFloat(position.x);
+        buffer.putFloat(position.y);
+        buffer.putFloat(velocity.y);
+    }
+
+    @Override
+    public void readFrom(ByteBuffer buffer) {
+        position.x = buffer.getFloat();
+        position.y = buffer.getFloat();
+        velocity.y = buffer.getFloat();
+        bounds.setPosition(position.x, position.y);
+    }
+}
@@ -0,0 +1,469 @@
+package com.andrejlohn.flappybird.physics;
+
+import java.util.Arrays;
+
+/**
+ * Lookup table of the height differences between two consecutive tube gaps which the player
+ * character can pass, by the spacing between the tubes. Tube layouts generated from the table are
+ * always passable, so the generator does not have to search for a path at runtime.
+ * The table is calculated from the exact per frame dynamics of the body at 60 frames per second,
+ * in twelfths of a pixel. It only holds as long as the body is stepped in fixed steps of 1/60
+ * seconds, whatever the frame rate of the display. Within these units gravity, jump velocity and
+ * positions are integers. A state of the body is its height and the number of frames since its
+ * last jump, which determines its velocity. Sets of states are bitsets with one row of heights per
+ * velocity.
+ * A height difference is passable if the body can get from each canonical state at the first
+ * frame it overlaps a tube, jumping within a band of one pixel just above the bottom of the gap,
+ * through the gap and the spacing to some canonical state at the next tube. As each tube can be
+ * reached in a canonical state, any sequence of passable differences can be passed. The band
+ * covers all heights modulo three, as the height after a given number of frames is fixed modulo
+ * three. The tube is taken to overlap the body for the largest possible number of frames and the
+ * spacing is checked for both possible frame counts, so that the result does not depend on the
+ * horizontal position of the body.
+ * The table rows are calculated on first use and the table is not synchronized. A table created
+ * by another thread may only be used after a synchronization point, like the end of a task.
+ *
+ * @version %I%, %G%
+ * @see     BirdBody
+ */
+public class ReachabilityTable {
+
+    public static final int SPACING_STEP = 5;
+    public static final int MAX_SPACING = 250;
+    public static final int MAX_DELTA = 250;
+
+    private static final int UNITS = 12;
+    private static final int FRAME_RATE = 60;
+    // Safety distance to the tubes for rounding errors of the floating point body
+    private static final int MARGIN = 2 * UNITS;
+    // Low jumps leave the most room to rise or fall within the gap
+    private static final int CANONICAL_HEIGHT = 5 * UNITS;
+    private static final int CANONICAL_STATES = UNITS;
+    private static final int MAX_GRAVITY_STEPS = 120;
+
+    private final int bodyWidth;
+    private final int bodyHeight;
+    private final int tubeWidth;
+    private final int gapHeight;
+    private final int floorDepth;
+
+    private final long[][] passable = new long[MAX_SPACING / SPACING_STEP + 1][];
+    private final int[] minDelta = new int[passable.length];
+    private final int[] maxDelta = new int[passable.length];
+
+    private final int jumpVelocity;
+    private final int gravity;
+    private final int minY;
+    private final int words;
+
+    /**
+     * Creates the table for the given geometry. The table rows are calculated on first use.
+     *
+     * @param bodyWidth     the width of the body
+     * @param bodyHeight    the height of the body
+     * @param tubeWidth     the width of the tubes
+     * @param gapHeight     the height of the gap between top and bottom tube
+     * @param floorDepth    the distance from the lowest possible gap down to the ground
+     * @throws              IllegalStateException if the physics constants are not integers in
+     *                      twelfths of a pixel per frame
+     */
+    public ReachabilityTable(int bodyWidth, int bodyHeight, int tubeWidth, int gapHeight, int floorDepth) {
+        this.bodyWidth = bodyWidth;
+        this.bodyHeight = bodyHeight;
+        this.tubeWidth = tubeWidth;
+        this.gapHeight = gapHeight;
+        this.floorDepth = floorDepth;
+
+        if((BirdBody.JUMP_VELOCITY * UNITS) % FRAME_RATE != 0 || (BirdBody.GRAVITY * UNITS) % FRAME_RATE != 0) {
+            throw new IllegalStateException("Physics constants are not integral per frame");
+        }
+        jumpVelocity = BirdBody.JUMP_VELOCITY * UNITS / FRAME_RATE;
+        gravity = -BirdBody.GRAVITY * UNITS / FRAME_RATE;
+
+        // Touching the ground ends the game
+        minY = 1 - floorDepth * UNITS;
+        int maxY = (MAX_DELTA + gapHeight) * UNITS;
+        words = (maxY - minY) / 64 + 1;
+    }
+
+    /**
+     * Checks whether a height difference between two consecutive tube gaps is passable.
+     *
+     * @param spacing   the horizontal distance between the tubes
+     * @param delta     the height of the second gap minus the height of the first gap
+     * @return          <code>true</code> if the second gap can be reached from the first
+     *                  <code>false</code> else
+     * @throws          IllegalArgumentException if the spacing is not part of the table
+     */
+    public boolean isPassable(int spacing, int delta) {
+        if(delta < -MAX_DELTA || delta > MAX_DELTA) {
+            return false;
+        }
+
+        long[] row = getRow(spacing);
+        int bit = delta + MAX_DELTA;
+        return (row[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Gets the lowest passable height difference of the contiguous range around zero. All
+     * differences between this and {@link #getMaxDelta(int)} are passable.
+     *
+     * @param spacing   the horizontal distance between the tubes
+     * @return          the lowest height difference, greater than the highest if no difference is
+     *                  passable
+     * @throws          IllegalArgumentException if the spacing is not part of the table
+     */
+    public int getMinDelta(int spacing) {
+        getRow(spacing);
+        return minDelta[spacing / SPACING_STEP];
+    }
+
+    /**
+     * Gets the highest passable height difference of the contiguous range around zero.
+     *
+     * @param spacing   the horizontal distance between the tubes
+     * @return          the highest height difference, less than the lowest if no difference is
+     *                  passable
+     * @throws          IllegalArgumentException if the spacing is not part of the table
+     * @see             #getMinDelta(int)
+     */
+    public int getMaxDelta(int spacing) {
+        getRow(spacing);
+        return maxDelta[spacing / SPACING_STEP];
+    }
+
+    /**
+     * Gets the table row of a spacing, calculating it on first use.
+     *
+     * @param spacing   the horizontal distance between the tubes
+     * @return          the bitset of passable height differences, offset by {@link #MAX_DELTA}
+     * @throws          IllegalArgumentException if the spacing is not part of the table
+     */
+    private long[] getRow(int spacing) {
+        if(spacing < 0 || spacing > MAX_SPACING || spacing % SPACING_STEP != 0) {
+            throw new IllegalArgumentException("Spacing " + spacing + " is not part of the table");
+        }
+
+        int index = spacing / SPACING_STEP;
+        if(passable[index] == null) {
+            calculate(index, spacing);
+        }
+        return passable[index];
+    }
+
+    /**
+     * Calculates the table row of a spacing. A height difference is passable if from each
+     * canonical state some canonical state shifted by the difference is reachable, for both
+     * possible numbers of frames to the next tube.
+     * The ground has to be avoided between the tubes, which is only known to be at least the
+     * floor depth below the lower of both gaps. Rising differences are therefore checked by
+     * advancing the canonical states to the next tube above the ground below the first gap.
+     * Falling differences are checked by tracing the canonical states at the next tube back to
+     * the end of the first tube above the ground below the second gap, where they have to meet
+     * the states advanced through the first tube.
+     *
+     * @param index     the index of the table row
+     * @param spacing   the horizontal distance between the tubes
+     * @see             #advance(int, int, long[][], long[][], int)
+     * @see             #retreat(int, long[][])
+     */
+    private void calculate(int index, int spacing) {
+        long[] row = new long[(2 * MAX_DELTA) / 64 + 1];
+        passable[index] = row;
+        minDelta[index] = 0;
+        maxDelta[index] = -1;
+        // The body can not be between two tubes at all
+        if(spacing < bodyWidth) {
+            return;
+        }
+
+        long[][] exits = new long[CANONICAL_STATES][];
+        long[][] arrivals = new long[CANONICAL_STATES * 2][];
+        long[][] departures = new long[2][];
+        for(int i=0; i<CANONICAL_STATES; i++) {
+            advance(CANONICAL_HEIGHT + i, spacing, exits, arrivals, i);
+        }
+        retreat(spacing, departures);
+
+        for(int delta=-MAX_DELTA; delta<=MAX_DELTA; delta++) {
+            if(isPassable(exits, arrivals, departures, delta)) {
+                int bit = delta + MAX_DELTA;
+                row[bit >>> 6] |= 1L << bit;
+            }
+        }
+
+        int min = 0, max = -1;
+        if(isPassable(exits, arrivals, departures, 0)) {
+            max = 0;
+            while(min > -MAX_DELTA && isPassable(exits, arrivals, departures, min - 1)) {
+                min--;
+            }
+            while(max < MAX_DELTA && isPassable(exits, arrivals, departures, max + 1)) {
+                max++;
+            }
+        }
+        minDelta[index] = min;
+        maxDelta[index] = max;
+    }
+
+    /**
+     * Checks whether from each canonical state some canonical state shifted by a height difference
+     * is reachable, for both possible numbers of frames to the next tube.
+     *
+     * @param exits         the states at the end of the first tube, for each canonical state
+     * @param arrivals      the jumping states at the next tube, for each canonical state and
+     *                      number of frames
+     * @param departures    the states at the end of the first tube leading to a canonical state
+     *                      at the next tube, for each number of frames
+     * @param delta         the height difference
+     * @return              <code>true</code> if the height difference is passable
+     *                      <code>false</code> else
+     */
+    private boolean isPassable(long[][] exits, long[][] arrivals, long[][] departures, int delta) {
+        for(int i=0; i<CANONICAL_STATES; i++) {
+            for(int frames=0; frames<2; frames++) {
+                if(delta >= 0) {
+                    int first = CANONICAL_HEIGHT + delta * UNITS - minY;
+                    boolean any = false;
+                    for(int j=0; j<CANONICAL_STATES && !any; j++) {
+                        any = get(arrivals[i * 2 + frames], first + j);
+                    }
+                    if(!any) {
+                        return false;
+                    }
+                } else if(!intersects(exits[i], departures[frames], -delta * UNITS)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether two sets of states have a common state, after shifting the first set
+     * upwards.
+     *
+     * @param states    the first set
+     * @param others    the second set
+     * @param shift     the number of height units to shift the first set by
+     * @return          <code>true</code> if there is a common state
+     *                  <code>false</code> else
+     */
+    private boolean intersects(long[] states, long[] others, int shift) {
+        for(int row=0; row<=MAX_GRAVITY_STEPS; row++) {
+            int offset = row * words;
+            for(int i=0; i<words; i++) {
+                long word = states[offset + i];
+                while(word != 0) {
+                    int bit = (i << 6) + Long.numberOfTrailingZeros(word) + shift;
+                    if(bit < words * 64 && (others[offset + (bit >>> 6)] & (1L << bit)) != 0) {
+                        return true;
+                    }
+                    word &= word - 1;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Advances a jumping state at the first frame the body overlaps a tube frame by frame, while
+     * staying within the gap and afterwards above the ground below the gap.
+     *
+     * @param height    the height of the jumping state above the bottom of the gap
+     * @param spacing   the horizontal distance between the tubes
+     * @param exits     receives the states at the last frame overlapping the tube
+     * @param arrivals  receives the jumping states after the lower and the higher possible
+     *                  number of frames to the next tube
+     * @param index     the index of the canonical state
+     */
+    private void advance(int height, int spacing, long[][] exits, long[][] arrivals, int index) {
+        int tubeFrames = ceilFrames(bodyWidth + tubeWidth);
+        int minFrames = (spacing + tubeWidth) * FRAME_RATE / BirdBody.MOVEMENT;
+        int maxFrames = ceilFrames(spacing + tubeWidth);
+        int lowest = MARGIN - minY;
+        int highest = (gapHeight - bodyHeight) * UNITS - MARGIN - minY;
+
+        long[] states = new long[(MAX_GRAVITY_STEPS + 1) * words];
+        long[] next = new long[states.length];
+        set(states, 0, height - minY);
+        if(tubeFrames == 1) {
+            exits[index] = states.clone();
+        }
+
+        for(int frame=1; frame<=maxFrames; frame++) {
+            step(states, next, 1);
+            long[] swap = states;
+            states = next;
+            next = swap;
+
+            if(frame < tubeFrames) {
+                for(int row=0; row<=MAX_GRAVITY_STEPS; row++) {
+                    clip(states, row * words, lowest, highest);
+                }
+            }
+            if(frame == tubeFrames - 1) {
+                exits[index] = states.clone();
+            }
+            if(frame == minFrames) {
+                arrivals[index * 2] = Arrays.copyOf(states, words);
+            }
+        }
+        arrivals[index * 2 + 1] = Arrays.copyOf(states, words);
+    }
+
+    /**
+     * Traces the canonical states at the next tube back frame by frame to the last frame
+     * overlapping the previous tube, while staying above the ground below the next gap.
+     *
+     * @param spacing       the horizontal distance between the tubes
+     * @param departures    receives the states at the last frame overlapping the previous tube,
+     *                      for the lower and the higher possible number of frames to the next
+     *                      tube
+     */
+    private void retreat(int spacing, long[][] departures) {
+        int tubeFrames = ceilFrames(bodyWidth + tubeWidth);
+        int minFrames = (spacing + tubeWidth) * FRAME_RATE / BirdBody.MOVEMENT;
+        int maxFrames = ceilFrames(spacing + tubeWidth);
+
+        long[] states = new long[(MAX_GRAVITY_STEPS + 1) * words];
+        long[] previous = new long[states.length];
+        for(int i=0; i<CANONICAL_STATES; i++) {
+            set(states, 0, CANONICAL_HEIGHT + i - minY);
+        }
+
+        for(int steps=1; steps<=maxFrames-tubeFrames+1; steps++) {
+            step(states, previous, -1);
+            long[] swap = states;
+            states = previous;
+            previous = swap;
+
+            if(steps == minFrames - tubeFrames + 1) {
+                departures[0] = states.clone();
+            }
+        }
+        departures[1] = states;
+    }
+
+    /**
+     * Advances a set of states by one frame, in which the body either jumps or not, or traces it
+     * back by one frame. Jumping states all end up in the first row, all other states move one
+     * row down as their velocity decreases. States leaving the table downwards or upwards are
+     * dropped, which only makes the result more conservative. The ground is below the table.
+     *
+     * @param states    the states before the step
+     * @param next      the states after the step
+     * @param direction 1 to advance, -1 to trace back
+     */
+    private void step(long[] states, long[] next, int direction) {
+        Arrays.fill(next, 0);
+
+        for(int row=0; row<=MAX_GRAVITY_STEPS; row++) {
+            // Jumping sets the velocity, from which gravity is subtracted right away
+            int jump = jumpVelocity - gravity;
+            int fall = jumpVelocity - gravity * (row + 2);
+            if(direction > 0) {
+                shiftOr(states, row * words, next, 0, jump);
+                if(row < MAX_GRAVITY_STEPS) {
+                    shiftOr(states, row * words, next, (row + 1) * words, fall);
+                }
+            } else {
+                shiftOr(states, 0, next, row * words, -jump);
+                if(row < MAX_GRAVITY_STEPS) {
+                    shiftOr(states, (row + 1) * words, next, row * words, -fall);
+                }
+            }
+        }
+    }
+
+    /**
+     * Shifts a bitset row by a number of bits and adds it to another row. Bits shifted out of the
+     * row are dropped.
+     *
+     * @param source        the source rows
+     * @param sourceOffset  the first word of the source row
+     * @param target        the target rows
+     * @param targetOffset  the first word of the target row
+     * @param shift         the number of bits to shift upwards, negative to shift downwards
+     */
+    private void shiftOr(long[] source, int sourceOffset, long[] target, int targetOffset, int shift) {
+        int wordShift = shift >> 6;
+        int bitShift = shift & 63;
+
+        for(int i=0; i<words; i++) {
+            long word = source[sourceOffset + i];
+            if(word == 0) {
+                continue;
+            }
+
+            int j = i + wordShift;
+            if(j >= 0 && j < words) {
+                target[targetOffset + j] |= word << bitShift;
+            }
+            if(bitShift != 0 && j + 1 >= 0 && j + 1 < words) {
+                target[targetOffset + j + 1] |= word >>> (64 - bitShift);
+            }
+        }
+    }
+
+    /**
+     * Removes all bits outside of an inclusive range from a bitset row.
+     *
+     * @param states    the rows
+     * @param offset    the first word of the row
+     * @param lowest    the lowest bit kept
+     * @param highest   the highest bit kept
+     */
+    private void clip(long[] states, int offset, int lowest, int highest) {
+        for(int i=0; i<words; i++) {
+            int first = i << 6;
+            int last = first + 63;
+            if(last < lowest || first > highest) {
+                states[offset + i] = 0;
+                continue;
+            }
+
+            long mask = -1L;
+            if(first < lowest) {
+                mask &= -1L << (lowest - first);
+            }
+            if(last > highest) {
+                mask &= -1L >>> (last - highest);
+            }
+            states[offset + i] &= mask;
+        }
+    }
+
+    /**
+     * Rounds up the number of frames the body needs to move the given distance.
+     *
+     * @param distance  the horizontal distance
+     * @return          the number of frames
+     */
+    private static int ceilFrames(int distance) {
+        return (distance * FRAME_RATE + BirdBody.MOVEMENT - 1) / BirdBody.MOVEMENT;
+    }
+
+    /**
+     * Sets a bit of a bitset.
+     *
+     * @param bits    the bitset
+     * @param offset  the first word
+     * @param bit     the bit index
+     */
+    private static void set(long[] bits, int offset, int bit) {
+        bits[offset + (bit >>> 6)] |= 1L << bit;
+    }
+
+    /**
+     * Gets a bit of a bitset, with all bits outside the bitset being unset.
+     *
+     * @param bits  the bitset
+     * @param bit   the bit index
+     * @return      the bit
+     */
+    private boolean get(long[] bits, int bit) {
+        return bit >= 0 && bit < words * 64 && (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+}
@@ -1,21 +1,21 @@
 package com.andrejlohn.flappybird.sprites;
 
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.utils.Array;
 
 /**
  * This class provides all necessary functionality to animate a two dimensional object given a
  * series of frames in a single linear texture.
+ * An animation is immutable and does not keep any timing state. The current frame is computed from
+ * a time value owned by the animated object, so a single animation can be shared by any number of
+ * objects.
  *
  * @version %I%, %G%
+ * @see     AnimationRegistry
  */
 public class Animation {
 
-    private Array<TextureRegion> frames;
-    private float maxFrameTime;
-    private float currentFrameTime;
-    private int frameCount;
-    private int frame;
+    private final TextureRegion[] frames;
+    private final float frameTime;
 
     /**
      * Creates the animation based on the given animation texture, the number of frames within this
@@ -27,46 +27,45 @@ public class Animation {
      * @see                 TextureRegion
      * @see                 TextureRegion#getRegionWidth()
      * @see                 TextureRegion#getRegionHeight()
-     * @see                 Array#add(Object)
      */
     public Animation(TextureRegion region, int frameCount, float cycleTime) {
-        frames = new Array<TextureRegion>();
+        frames = new TextureRegion[frameCount];
         int frameWidth = region.getRegionWidth() / frameCount;
 
         for(int i=0; i<frameCount; i++) {
-            frames.add(new TextureRegion(region, i * frameWidth, 0, frameWidth, region.getRegionHeight()));
+            frames[i] = new TextureRegion(region, i * frameWidth, 0, frameWidth, region.getRegionHeight());
         }
 
-        this.frameCount = frameCount;
-        maxFrameTime = cycleTime / frameCount;
-        frame = 0;
+        frameTime = cycleTime / frameCount;
     }
 
     /**
-     * Cycles through the animation step by step based on the time passed since the last update.
+     * Gets the frame of the animation shown at the given time. The time is not limited to a single
+     * animation cycle, the animation loops.
      *
-     * @param dt    the time since the last update
+     * @param time  the time passed since the animation started
+     * @return      the animation frame at the given time
+     * @see         TextureRegion
      */
-    public void update(float dt) {
-        currentFrameTime += dt;
-
-        if(currentFrameTime > maxFrameTime) {
-            frame++;
-            currentFrameTime = 0;
-        }
+    public TextureRegion getFrame(float time) {
+        return frames[(int) (time / frameTime) % frames.length];
+    }
 
-        if(frame >= frameCount) {
-             frame = 0;
-        }
+    /**
+     * Gets the number of frames of the animation.
+     *
+     * @return  the number of frames
+     */
+    public int getFrameCount() {
+        return frames.length;
     }
 
     /**
-     * Gets the current frame of the animation.
+     * Gets the time required for one animation cycle.
      *
-     * @return  the current animation frame
-     * @see     TextureRegion
+     * @return  the cycle time
      */
-    public TextureRegion getFrame() {
-        return frames.get(frame);
+    public float getCycleTime() {
+        return frameTime * frames.length;
     }
 }
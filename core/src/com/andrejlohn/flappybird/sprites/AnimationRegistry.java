@@ -0,0 +1,70 @@
+package com.andrejlohn.flappybird.sprites;
+
+import com.andrejlohn.flappybird.Assets;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * The registry of all animations used by the game. Each animation texture is loaded only once and
+ * its animation is shared by all objects using it. The registry owns the animation textures, they
+ * are released by {@link #dispose()} when the game ends.
+ *
+ * @version %I%, %G%
+ * @see     Animation
+ */
+public final class AnimationRegistry {
+
+    // The cycle time is recomputed from the frame time and may differ by rounding
+    private static final float CYCLE_TIME_TOLERANCE = 1e-5f;
+
+    private static final ObjectMap<String, Animation> animations = new ObjectMap<String, Animation>();
+    private static final Array<Texture> textures = new Array<Texture>();
+
+    private AnimationRegistry() {
+    }
+
+    /**
+     * Gets the animation of the given animation texture. The animation is created on the first
+     * request, later requests for the same texture return the same animation. As the animation is
+     * shared, all requests for a texture have to slice and time it the same way.
+     *
+     * @param fileName      the internal path of the animation texture
+     * @param frameCount    the number of frames in the texture
+     * @param cycleTime     the time required for one animation cycle
+     * @return              the shared animation
+     * @throws              IllegalArgumentException if the texture is already animated with another
+     *                      number of frames or cycle time
+     * @see                 Animation
+     */
+    public static Animation get(String fileName, int frameCount, float cycleTime) {
+        Animation animation = animations.get(fileName);
+
+        if(animation == null) {
+            Texture texture = Assets.getTexture(fileName);
+            textures.add(texture);
+            animation = new Animation(new TextureRegion(texture), frameCount, cycleTime);
+            animations.put(fileName, animation);
+        } else if(animation.getFrameCount() != frameCount
+                || Math.abs(animation.getCycleTime() - cycleTime) > CYCLE_TIME_TOLERANCE) {
+            throw new IllegalArgumentException("Animation " + fileName + " is already registered with "
+                    + animation.getFrameCount() + " frames in " + animation.getCycleTime() + " s");
+        }
+
+        return animation;
+    }
+
+    /**
+     * Releases all animation textures and clears the registry. Prevents memory leaks.
+     *
+     * @see Assets#release(Texture)
+     */
+    public static void dispose() {
+        for(Texture texture: textures) {
+            Assets.release(texture);
+        }
+        textures.clear();
+        animations.clear();
+    }
+}
@@ -1,113 +1,147 @@
 package com.andrejlohn.flappybird.sprites;
 
-import com.badlogic.gdx.Gdx;
+import com.andrejlohn.flappybird.Assets;
+import com.andrejlohn.flappybird.physics.BirdBody;
+import com.andrejlohn.flappybird.physics.BirdBodyFactory;
 import com.badlogic.gdx.audio.Sound;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector3;
 
+import java.nio.ByteBuffer;
+
 /**
- * This class represents the player character with its position, upwards velocity, bounding box,
- * animation and sound effects. The character is subject to gravitational pull and reacts to player
- * input.
+ * This class represents the player character with its physical body, animation and sound effects.
+ * The character is subject to gravitational pull and reacts to player input.
+ * The physics implementation of the body is chosen by the creator of the character.
  *
  * @version &I&, &G&
  */
 public class Bird {
 
-    private static final int GRAVITY = -15;
-    private static final int MOVEMENT = 100;
+    private static final String ANIMATION = "birdAnimation.png";
+    private static final int FRAME_COUNT = 3;
+    private static final float CYCLE_TIME = 0.5f;
 
+    private BirdBody body;
     private Vector3 position;
-    private Vector3 velocity;
-    private Rectangle bounds;
-    private Texture texture;
     private Animation birdAnimation;
+    private float animationTime;
     private Sound flap;
 
     /**
      * Creates the player character at a specified starting position. All required values are set
      * appropriately. the characters starting velocity is zero.
      *
-     * @param x the characters starting position x-coordinate
-     * @param y the characters starting position y-coordinate
-     * @see     Vector3
-     * @see     Rectangle
-     * @see     TextureRegion
-     * @see     Animation
-     * @see     Sound
-     * @see     Texture
-     * @see     Texture#getHeight()
-     * @see     Texture#getWidth()
-     * @see     com.badlogic.gdx.Files#internal(String)
+     * @param x       the characters starting position x-coordinate
+     * @param y       the characters starting position y-coordinate
+     * @param physics the factory of the characters body
+     * @see           Vector3
+     * @see           BirdBody
+     * @see           BirdBodyFactory#create(int, int, int, int)
+     * @see           TextureRegion
+     * @see           Animation
+     * @see           #getAnimation()
+     * @see           Sound
+     * @see           Assets#getSound(String)
      */
-    public Bird(int x, int y) {
+    public Bird(int x, int y, BirdBodyFactory physics) {
         position = new Vector3(x, y, 0);
-        velocity = new Vector3(0,0,0);
-        texture = new Texture("birdAnimation.png");
-        birdAnimation = new Animation(new TextureRegion(texture), 3, 0.5f);
-        bounds = new Rectangle(x, y, texture.getWidth() / 3, texture.getHeight());
-        flap = Gdx.audio.newSound(Gdx.files.internal("sfx_wing.ogg"));
+        birdAnimation = getAnimation();
+        TextureRegion frame = birdAnimation.getFrame(0);
+        body = physics.create(x, y, frame.getRegionWidth(), frame.getRegionHeight());
+        flap = Assets.getSound("sfx_wing.ogg");
+    }
+
+    /**
+     * Gets the animation shared by all player characters. The size of its frames is the size of
+     * the characters body.
+     *
+     * @return  the animation
+     * @see     AnimationRegistry#get(String, int, float)
+     */
+    public static Animation getAnimation() {
+        return AnimationRegistry.get(ANIMATION, FRAME_COUNT, CYCLE_TIME);
     }
 
     /**
-     * Updates the player character and its bounding box according to its velocity and the time
-     * passed since the last update.
+     * Updates the player character according to its velocity and the time passed since the last
+     * update.
      * The character is moved forwards with a fixed speed, upwards based on its velocity and
      * downwards according to the gravitational pull. The character can not move downwards below
      * the ground level (y=0).
      *
      * @param dt    the time since the last update
-     * @see         Animation#update(float)
-     * @see         Vector3#add(Vector3)
-     * @see         Vector3#scl(float)
-     * @see         Rectangle#setPosition(float, float)
+     * @see         BirdBody#step(float)
      */
     public void update(float dt) {
-        birdAnimation.update(dt);
-
-        if(position.y > 0) {
-            velocity.add(0, GRAVITY, 0);
-        }
-
-        velocity.scl(dt);
-        position.add(MOVEMENT * dt, velocity.y, 0);
-
-        if(position.y < 0) {
-            position.y = 0;
-        }
-
-        velocity.scl(1/dt);
-
-        bounds.setPosition(position.x, position.y);
+        animationTime += dt;
+        body.step(dt);
+        position.set(body.getX(), body.getY(), 0);
     }
 
     /**
      * Pushes the character upwards and plays a jump sound effect.
+     *
+     * @see BirdBody#jump()
+     * @see #playJumpSound()
      */
     public void jump() {
-        velocity.y = 250;
+        body.jump();
+        playJumpSound();
+    }
+
+    /**
+     * Plays the jump sound effect.
+     *
+     * @see Sound#play(float)
+     */
+    public void playJumpSound() {
         flap.play(0.3f);
     }
 
+    /**
+     * Writes the characters position, velocity and animation time to a world snapshot.
+     *
+     * @param buffer    the snapshot buffer
+     * @see             #readFrom(ByteBuffer)
+     * @see             BirdBody#writeTo(ByteBuffer)
+     */
+    public void writeTo(ByteBuffer buffer) {
+        body.writeTo(buffer);
+        buffer.putFloat(animationTime);
+    }
+
+    /**
+     * Restores the characters position, velocity and animation time from a world snapshot.
+     *
+     * @param buffer    the snapshot buffer
+     * @see             #writeTo(ByteBuffer)
+     * @see             BirdBody#readFrom(ByteBuffer)
+     */
+    public void readFrom(ByteBuffer buffer) {
+        body.readFrom(buffer);
+        animationTime = buffer.getFloat();
+        position.set(body.getX(), body.getY(), 0);
+    }
+
     /**
      * Disposes all game objects not subject to the garbage collection. Prevents memory leaks.
+     * The animation texture is shared and owned by the animation registry.
      *
-     * @see Texture#dispose()
-     * @see Sound#dispose()
+     * @see Assets#release(Sound)
+     * @see AnimationRegistry#dispose()
      */
     public void dispose() {
-        texture.dispose();
-        flap.dispose();
+        Assets.release(flap);
     }
 
     /**
-     * Gets the characters bounding box.
+     * Gets the characters physical body.
      *
-     * @return  the characters bounding box
+     * @return  the characters body
+     * @see     BirdBody
      */
-    public Rectangle getBounds() { return bounds; }
+    public BirdBody getBody() { return body; }
 
     /**
      * Gets the characters position vector.
@@ -124,8 +158,9 @@ public class Bird {
      *
      * @return  the characters current animation frame
      * @see     TextureRegion
+     * @see     Animation#getFrame(float)
      */
     public TextureRegion getTexture() {
-        return birdAnimation.getFrame();
+        return birdAnimation.getFrame(animationTime);
     }
 }
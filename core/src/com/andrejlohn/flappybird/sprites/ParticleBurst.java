@@ -0,0 +1,122 @@
+package com.andrejlohn.flappybird.sprites;
+
+import com.badlogic.gdx.graphics.Color;
+
+/**
+ * The description of a burst of particles, like the feathers lost by a flap of the wings. All
+ * particles of a burst share their color, size, lifetime and gravity, their direction and speed
+ * are drawn at random within the given ranges.
+ *
+ * @version %I%, %G%
+ * @see     ParticleSystem#emit(float, float, int, ParticleBurst)
+ */
+public class ParticleBurst {
+
+    private final float angle;
+    private final float spread;
+    private final float minSpeed;
+    private final float maxSpeed;
+    private final float gravity;
+    private final float lifetime;
+    private final float size;
+    private final int color;
+
+    /**
+     * Creates the burst description.
+     *
+     * @param angle     the mean direction of the particles in degrees, counterclockwise from the
+     *                  positive x-axis
+     * @param spread    the width of the range of directions around the mean in degrees
+     * @param minSpeed  the lowest initial speed
+     * @param maxSpeed  the highest initial speed
+     * @param gravity   the vertical acceleration, negative to pull the particles downwards
+     * @param lifetime  the time in seconds until the particles have faded out
+     * @param size      the edge length of the particles
+     * @param color     the color of the particles, the alpha value is ignored
+     * @see             Color
+     */
+    public ParticleBurst(float angle, float spread, float minSpeed, float maxSpeed, float gravity,
+                         float lifetime, float size, Color color) {
+        this.angle = angle;
+        this.spread = spread;
+        this.minSpeed = minSpeed;
+        this.maxSpeed = maxSpeed;
+        this.gravity = gravity;
+        this.lifetime = lifetime;
+        this.size = size;
+        // Packed like Color#toFloatBits(), so that only the alpha value has to be added
+        this.color = ((int) (255 * color.b) << 16) | ((int) (255 * color.g) << 8) | (int) (255 * color.r);
+    }
+
+    /**
+     * Gets the mean direction of the particles.
+     *
+     * @return  the direction in degrees
+     */
+    public float getAngle() {
+        return angle;
+    }
+
+    /**
+     * Gets the width of the range of directions around the mean.
+     *
+     * @return  the spread in degrees
+     */
+    public float getSpread() {
+        return spread;
+    }
+
+    /**
+     * Gets the lowest initial speed of the particles.
+     *
+     * @return  the lowest speed
+     */
+    public float getMinSpeed() {
+        return minSpeed;
+    }
+
+    /**
+     * Gets the highest initial speed of the particles.
+     *
+     * @return  the highest speed
+     */
+    public float getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    /**
+     * Gets the vertical acceleration of the particles.
+     *
+     * @return  the acceleration
+     */
+    public float getGravity() {
+        return gravity;
+    }
+
+    /**
+     * Gets the time until the particles have faded out.
+     *
+     * @return  the lifetime in seconds
+     */
+    public float getLifetime() {
+        return lifetime;
+    }
+
+    /**
+     * Gets the edge length of the particles.
+     *
+     * @return  the size
+     */
+    public float getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the color of the particles without alpha value, packed as blue, green and red bytes.
+     *
+     * @return  the packed color
+     */
+    public int getColor() {
+        return color;
+    }
+}
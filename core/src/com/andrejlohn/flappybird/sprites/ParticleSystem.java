@@ -0,0 +1,181 @@
+package com.andrejlohn.flappybird.sprites;
+
+import com.andrejlohn.flappybird.ResourceTracker;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.NumberUtils;
+
+/**
+ * A fixed number of simple particles, which are squares moving under their own gravity and
+ * fading out over their lifetime. The particles are kept in preallocated arrays of primitives, one
+ * per attribute, so that emitting, updating and drawing them never allocates memory. Expired
+ * particles are replaced by the last live particle, which keeps the live particles at the start of
+ * the arrays. Particles emitted while all particles are live are dropped.
+ * The particles are purely visual and take their random numbers from {@link MathUtils} instead of
+ * the random number generator of the level, so that they do not change the game world. All
+ * methods must be called by the render thread.
+ *
+ * @version %I%, %G%
+ * @see     ParticleBurst
+ */
+public class ParticleSystem {
+
+    private final float[] x, y;
+    private final float[] velocityX, velocityY;
+    private final float[] gravity;
+    private final float[] life;
+    private final float[] fade;
+    private final float[] size;
+    private final int[] color;
+    private int count;
+
+    private final Pixmap pixmap;
+    private final Texture texture;
+
+    /**
+     * Creates the particle system with a plain white texture for the particles.
+     *
+     * @param capacity  the maximum number of live particles
+     * @see             Pixmap#fill()
+     * @see             PixmapTextureData
+     * @see             ResourceTracker#created(Object, String)
+     */
+    public ParticleSystem(int capacity) {
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        gravity = new float[capacity];
+        life = new float[capacity];
+        fade = new float[capacity];
+        size = new float[capacity];
+        color = new int[capacity];
+
+        pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+        pixmap.setColor(Color.WHITE);
+        pixmap.fill();
+        // Managed, so that the texture is restored from the pixmap after a context loss
+        texture = new Texture(new PixmapTextureData(pixmap, null, false, false, true));
+        ResourceTracker.created(texture, "particle texture");
+    }
+
+    /**
+     * Emits a burst of particles from a single point.
+     *
+     * @param originX   the x-coordinate of the origin
+     * @param originY   the y-coordinate of the origin
+     * @param amount    the number of particles
+     * @param burst     the description of the burst
+     * @see             MathUtils#random(float, float)
+     */
+    public void emit(float originX, float originY, int amount, ParticleBurst burst) {
+        int end = Math.min(count + amount, x.length);
+        float halfSpread = burst.getSpread() / 2;
+
+        for(int i=count; i<end; i++) {
+            float angle = burst.getAngle() + MathUtils.random(-halfSpread, halfSpread);
+            float speed = MathUtils.random(burst.getMinSpeed(), burst.getMaxSpeed());
+            x[i] = originX;
+            y[i] = originY;
+            velocityX[i] = MathUtils.cosDeg(angle) * speed;
+            velocityY[i] = MathUtils.sinDeg(angle) * speed;
+            gravity[i] = burst.getGravity();
+            life[i] = burst.getLifetime();
+            fade[i] = 1 / burst.getLifetime();
+            size[i] = burst.getSize();
+            color[i] = burst.getColor();
+        }
+        count = end;
+    }
+
+    /**
+     * Moves all particles according to the time passed since the last update and removes the
+     * expired ones.
+     *
+     * @param dt    the time since the last update
+     */
+    public void update(float dt) {
+        for(int i=0; i<count; i++) {
+            velocityY[i] += gravity[i] * dt;
+            x[i] += velocityX[i] * dt;
+            y[i] += velocityY[i] * dt;
+            life[i] -= dt;
+        }
+
+        // Backwards, so that the particle moved into a free slot has been checked already
+        for(int i=count-1; i>=0; i--) {
+            if(life[i] <= 0) {
+                count--;
+                x[i] = x[count];
+                y[i] = y[count];
+                velocityX[i] = velocityX[count];
+                velocityY[i] = velocityY[count];
+                gravity[i] = gravity[count];
+                life[i] = life[count];
+                fade[i] = fade[count];
+                size[i] = size[count];
+                color[i] = color[count];
+            }
+        }
+    }
+
+    /**
+     * Draws all live particles as part of the current sprite batch, which keeps its color
+     * afterwards.
+     *
+     * @param sb    the batch of game sprites, between begin and end
+     * @see         SpriteBatch#setColor(float)
+     * @see         SpriteBatch#draw(Texture, float, float, float, float)
+     * @see         NumberUtils#intToFloatColor(int)
+     */
+    public void draw(SpriteBatch sb) {
+        float previous = sb.getPackedColor();
+
+        for(int i=0; i<count; i++) {
+            int alpha = (int) (255 * Math.min(life[i] * fade[i], 1));
+            sb.setColor(NumberUtils.intToFloatColor(alpha << 24 | color[i]));
+            sb.draw(texture, x[i], y[i], size[i], size[i]);
+        }
+        sb.setColor(previous);
+    }
+
+    /**
+     * Removes all particles.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Gets the number of live particles.
+     *
+     * @return  the number of live particles
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the maximum number of live particles.
+     *
+     * @return  the capacity
+     */
+    public int getCapacity() {
+        return x.length;
+    }
+
+    /**
+     * Disposes the particle texture and its pixmap. Prevents memory leaks.
+     *
+     * @see ResourceTracker#disposed(Object)
+     */
+    public void dispose() {
+        ResourceTracker.disposed(texture);
+        texture.dispose();
+        pixmap.dispose();
+    }
+}
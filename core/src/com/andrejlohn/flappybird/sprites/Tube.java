@@ -1,9 +1,14 @@
 package com.andrejlohn.flappybird.sprites;
 
+import com.andrejlohn.flappybird.Assets;
+import com.andrejlohn.flappybird.physics.BirdBody;
+import com.andrejlohn.flappybird.physics.ReachabilityTable;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 
+import java.nio.ByteBuffer;
 import java.util.Random;
 
 /**
@@ -13,40 +18,83 @@ import java.util.Random;
  * be placed in the game world with the gap positioned at a random height.
  * By this version the tube gap has a fixed length and all tubes will be distributed with a fixed
  * and equal distance throughout the game world. The random height position of the tube gap is
- * capped by fixed FLUCTUATION and LOWEST_OPENING values.
+ * capped by fixed FLUCTUATION and LOWEST_OPENING values and by the height differences to the
+ * previous gap which the player character can pass.
  *
  * @version %I%, %G%
+ * @see     ReachabilityTable
  */
 public class Tube {
 
     public static final int TUBE_WIDTH = 52;
+    public static final int TUBE_GAP = 100;
 
     private static final int FLUCTUATION = 130;
-    private static final int TUBE_GAP = 100;
     private static final int LOWEST_OPENING = 120;
 
-    // TODO make those static for reuse
     private Texture topTube, bottomTube;
 
     private Vector2 posTopTube, posBotTube;
     private Rectangle boundsTop, boundsBot;
     private Random rand;
+    private ReachabilityTable reachability;
+    private int spacing;
 
     /**
-     * Creates the tube and its bounding boxes based on a passed horizontal value.
+     * Creates the reachability table for the tube geometry and the given size of the player
+     * character and checks that tubes with the given spacing can always be passed. This is the
+     * case if a gap at the same height as the previous one is passable, as every gap then leaves
+     * a passable height for the next one. Calculating the table rows is expensive, so the table
+     * should be created once and shared. This may be done by any thread.
      *
-     * @param x the x-coordinate of the tube
-     * @see     Rectangle
-     * @see     Texture
-     * @see     Vector2
-     * @see     Random#nextInt()
+     * @param bodyWidth     the width of the player character
+     * @param bodyHeight    the height of the player character
+     * @param groundY       the height of the ground surface
+     * @param spacing       the horizontal distance between the tubes
+     * @return              the reachability table
+     * @throws              IllegalStateException if no gap height is passable after some gap
+     * @see                 ReachabilityTable#ReachabilityTable(int, int, int, int, int)
+     * @see                 ReachabilityTable#isPassable(int, int)
      */
-    public Tube(float x){
-        topTube = new Texture("topTube.png");
-        bottomTube = new Texture("bottomTube.png");
-        rand = new Random();
+    public static ReachabilityTable createReachabilityTable(int bodyWidth, int bodyHeight, int groundY, int spacing) {
+        ReachabilityTable table = new ReachabilityTable(
+                bodyWidth,
+                bodyHeight,
+                TUBE_WIDTH,
+                TUBE_GAP,
+                LOWEST_OPENING - groundY);
+
+        if(!table.isPassable(spacing, 0)) {
+            throw new IllegalStateException("Tubes with a spacing of " + spacing + " can not be passed");
+        }
+        return table;
+    }
 
-        posTopTube = new Vector2(x, rand.nextInt(FLUCTUATION) + TUBE_GAP + LOWEST_OPENING);
+    /**
+     * Creates the tube and its bounding boxes based on a passed horizontal value. The gap position
+     * is drawn from the given random number generator, which is shared by all tubes of a level,
+     * within the height differences to the previous gap the player character can pass.
+     *
+     * @param x             the x-coordinate of the tube
+     * @param previousTopY  the y-coordinate of the previous top tube, <code>NaN</code> for the
+     *                      first tube
+     * @param rand          the random number generator of the level
+     * @param reachability  the table of passable height differences, checked for the spacing
+     * @param spacing       the horizontal distance to the previous tube
+     * @see                 Rectangle
+     * @see                 Texture
+     * @see                 Assets#getTexture(String)
+     * @see                 Vector2
+     * @see                 Random#nextInt()
+     */
+    public Tube(float x, float previousTopY, Random rand, ReachabilityTable reachability, int spacing){
+        topTube = Assets.getTexture("topTube.png");
+        bottomTube = Assets.getTexture("bottomTube.png");
+        this.rand = rand;
+        this.reachability = reachability;
+        this.spacing = spacing;
+
+        posTopTube = new Vector2(x, nextTopY(previousTopY));
         posBotTube = new Vector2(x, posTopTube.y - TUBE_GAP - bottomTube.getHeight());
 
         boundsTop = new Rectangle(
@@ -66,37 +114,98 @@ public class Tube {
      * This allows for the usage of only a small number of tubes at any given time while
      * maintaining the impression of an infinite amount of tubes.
      *
-     * @param x the tubes new x-coordinate
+     * @param x             the tubes new x-coordinate
+     * @param previousTopY  the y-coordinate of the top tube preceding the new position
+     */
+    public void reposition(float x, float previousTopY) {
+        setPosition(x, nextTopY(previousTopY));
+    }
+
+    /**
+     * Draws the height of the next top tube uniformly from all heights the player character can
+     * reach from the previous gap. Without a previous gap, the whole fluctuation range is used.
+     * The height of the previous gap itself is always among them, as the table has been checked
+     * for the spacing on creation.
+     *
+     * @param previousTopY  the y-coordinate of the previous top tube, <code>NaN</code> if there
+     *                      is none
+     * @return              the y-coordinate of the top tube
+     * @see                 #createReachabilityTable(int, int, int, int)
+     * @see                 ReachabilityTable#getMinDelta(int)
+     * @see                 ReachabilityTable#getMaxDelta(int)
+     */
+    private int nextTopY(float previousTopY) {
+        int lowest = TUBE_GAP + LOWEST_OPENING;
+        int highest = lowest + FLUCTUATION - 1;
+
+        if(!Float.isNaN(previousTopY)) {
+            // Clamped, so that the previous height stays within the range for snapshots as well
+            int previous = MathUtils.clamp((int) previousTopY, lowest, highest);
+            lowest = Math.max(lowest, previous + reachability.getMinDelta(spacing));
+            highest = Math.min(highest, previous + reachability.getMaxDelta(spacing));
+        }
+        return lowest + rand.nextInt(highest - lowest + 1);
+    }
+
+    /**
+     * Places the tube and its bounding boxes at the given horizontal position and top tube height.
+     *
+     * @param x     the tubes x-coordinate
+     * @param topY  the y-coordinate of the top tube
      */
-    public void reposition(float x) {
-        posTopTube.set(x, rand.nextInt(FLUCTUATION) + TUBE_GAP + LOWEST_OPENING);
+    private void setPosition(float x, float topY) {
+        posTopTube.set(x, topY);
         posBotTube.set(x, posTopTube.y - TUBE_GAP - bottomTube.getHeight());
 
         boundsTop.setPosition(posTopTube.x, posTopTube.y);
         boundsBot.setPosition(posBotTube.x, posBotTube.y);
     }
 
+    /**
+     * Writes the tubes position to a world snapshot.
+     *
+     * @param buffer    the snapshot buffer
+     * @see             #readFrom(ByteBuffer)
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putFloat(posTopTube.x);
+        buffer.putFloat(posTopTube.y);
+    }
+
+    /**
+     * Restores the tubes position from a world snapshot.
+     *
+     * @param buffer    the snapshot buffer
+     * @see             #writeTo(ByteBuffer)
+     */
+    public void readFrom(ByteBuffer buffer) {
+        float x = buffer.getFloat();
+        setPosition(x, buffer.getFloat());
+    }
+
     /**
      * Checks for collision of the bounding boxes of the tube and the player character.
      * As the tube consists of two tubes with separate bounding boxes, two collision checks are
-     * required.
+     * required. The tubes are always placed at integer coordinates, so that the check is exact for
+     * fixed-point physics as well.
      *
-     * @param player    the player character bounding box
+     * @param player    the player character body
      * @return          <code>true</code> if the bounding boxes intersect each other
      *                  <code>false</code> else
+     * @see             BirdBody#overlaps(Rectangle)
      */
-    public boolean collides(Rectangle player) {
+    public boolean collides(BirdBody player) {
         return player.overlaps(boundsTop) || player.overlaps(boundsBot);
     }
 
     /**
      * Disposes all game objects not subject to the garbage collection. Prevents memory leaks.
      *
-     * @see Texture#dispose()
+     * @see Assets#release(Texture)
      */
     public void dispose() {
-        topTube.dispose();
-        bottomTube.dispose();
+        Assets.release(topTube);
+        Assets.release(bottomTube);
     }
 
     /**
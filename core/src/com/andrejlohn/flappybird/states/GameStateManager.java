@@ -1,80 +1,204 @@
 package com.andrejlohn.flappybird.states;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.Array;
 
-import java.util.Stack;
+import java.nio.ByteBuffer;
 
 /**
  * The collection for the games states. This is implemented as a stack. When a new state is invoked,
- * it is placed on top of the stack and set active. All other states in the stack will be inactive
- * and waiting for further execution. Only the state on top of the stack is subject to further
- * updating.
+ * it is placed on top of the stack and set active. States below the top state are covered and
+ * frozen, unless they declare to be updated while covered. Frozen states are paused until they
+ * are on top again.
+ * States are rendered from the topmost opaque state upwards, so translucent states like overlays
+ * are drawn on top of the states they cover, while fully covered states are not rendered at all.
  *
  * @version %I%, %G%
- * @see     Stack
+ * @see     Array
+ * @see     State#isOpaque()
+ * @see     State#updatesWhenCovered()
  */
 public class GameStateManager {
-    private Stack<State> states;
+    private Array<State> states;
+    private int changes;
 
     /**
-     * Creates the game state manager by initializing a new stack of states.
+     * Creates the game state manager by initializing a new stack of states. The stack is only
+     * accessed by the render thread and therefore not synchronized.
      *
-     * @see Stack
+     * @see Array
      */
     public GameStateManager(){
-        states = new Stack<State>();
+        states = new Array<State>();
     }
 
     /**
-     * Pushes a state on top of the stack of game states.
+     * Pushes a state on top of the stack of game states. The covered state is paused, unless it
+     * is updated while covered.
      *
      * @param state the new active game state
-     * @see         Stack#push(Object)
+     * @see         Array#add(Object)
+     * @see         State#pause()
      */
     public void push(State state){
-        states.push(state);
+        if(states.size > 0 && !states.peek().updatesWhenCovered()) {
+            states.peek().pause();
+        }
+        states.add(state);
+        changes++;
     }
 
     /**
-     * Removes the top state from the stack and deletes all its game objects.
+     * Removes the top state from the stack and deletes all its game objects. The state below is
+     * resumed, if it has been paused.
      *
      * @see State#dispose()
-     * @see Stack#pop()
+     * @see State#resume()
+     * @see Array#pop()
      */
     public void pop(){
         states.pop().dispose();
+        changes++;
+        if(states.size > 0 && !states.peek().updatesWhenCovered()) {
+            states.peek().resume();
+        }
     }
 
     /**
-     * Pops the top state from the stack and immediately pushes a new state.
+     * Removes all states from the stack and deletes their game objects, from the top down. The
+     * covered states are not resumed in between, as the game ends.
+     *
+     * @see State#dispose()
+     * @see Array#pop()
+     */
+    public void dispose(){
+        while(states.size > 0) {
+            states.pop().dispose();
+        }
+        changes++;
+    }
+
+    /**
+     * Gets the active state on top of the stack.
+     *
+     * @return  the top state, <code>null</code> if the stack is empty
+     * @see     Array#peek()
+     */
+    public State peek(){
+        return states.size > 0 ? states.peek() : null;
+    }
+
+    /**
+     * Pops the top state from the stack and immediately pushes a new state. The states below are
+     * not affected.
      *
      * @param state the new active game state
-     * @see         #pop()
-     * @see         #push(State)
+     * @see         State#dispose()
+     * @see         Array#add(Object)
      */
     public void set(State state){
         states.pop().dispose();
-        states.push(state);
+        states.add(state);
+        changes++;
     }
 
     /**
-     * Updates the active state with all its game objects according to the tome passed since the
-     * last update.
+     * Updates the active state and all covered states which are updated while covered according to
+     * the time passed since the last update. States are updated from the top down. If an update
+     * changes the stack, the remaining states are not updated anymore in this frame.
      *
      * @param dt    the time passed since the last update
      * @see         State#update(float)
+     * @see         #isActive(int)
      */
     public void update(float dt){
-        states.peek().update(dt);
+        int expectedChanges = changes;
+
+        for(int i=states.size-1; i>=0; i--) {
+            if(isActive(i)) {
+                states.get(i).update(dt);
+                if(changes != expectedChanges) {
+                    break;
+                }
+            }
+        }
     }
 
     /**
-     * Renders the active states sprites to the screen.
+     * Renders the states sprites to the screen, starting with the topmost opaque state up to the
+     * active state.
      *
      * @param sb    the batch of game sprites
      * @see         State#render(SpriteBatch)
+     * @see         State#isOpaque()
      */
     public void render(SpriteBatch sb){
-        states.peek().render(sb);
+        int bottom = states.size - 1;
+
+        while(bottom > 0 && !states.get(bottom).isOpaque()) {
+            bottom--;
+        }
+        for(int i=bottom; i<states.size; i++) {
+            states.get(i).render(sb);
+        }
+    }
+
+    /**
+     * Pauses all states which are not frozen already.
+     *
+     * @see State#pause()
+     * @see #isActive(int)
+     */
+    public void pause(){
+        for(int i=states.size-1; i>=0; i--) {
+            if(isActive(i)) {
+                states.get(i).pause();
+            }
+        }
+    }
+
+    /**
+     * Resumes all states which are not frozen.
+     *
+     * @see State#resume()
+     * @see #isActive(int)
+     */
+    public void resume(){
+        for(int i=0; i<states.size; i++) {
+            if(isActive(i)) {
+                states.get(i).resume();
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the topmost states game world. States without a game world, like
+     * overlays, are skipped.
+     *
+     * @param buffer    the snapshot buffer
+     * @return          <code>true</code> if a snapshot was written
+     *                  <code>false</code> else
+     * @see             State#writeSnapshot(ByteBuffer)
+     */
+    public boolean writeSnapshot(ByteBuffer buffer){
+        for(int i=states.size-1; i>=0; i--) {
+            if(states.get(i).writeSnapshot(buffer)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the state at the given stack position is updated. This is the case for the
+     * top state and for covered states which are updated while covered.
+     *
+     * @param index the stack position
+     * @return      <code>true</code> if the state is updated
+     *              <code>false</code> if the state is frozen
+     * @see         State#updatesWhenCovered()
+     */
+    private boolean isActive(int index){
+        return index == states.size - 1 || states.get(index).updatesWhenCovered();
     }
 }
@@ -1,57 +1,103 @@
 package com.andrejlohn.flappybird.states;
 
+import com.andrejlohn.flappybird.Assets;
 import com.andrejlohn.flappybird.FlappyDemo;
+import com.andrejlohn.flappybird.ResourceTracker;
+import com.andrejlohn.flappybird.net.RaceClient;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Align;
 
 /**
  * This state is the default start up state of the game as well as the state invoked after the
  * player looses the game. As defined by the state base class it carries the game state manager,
  * the camera and the mouse. In addition texture objects for the game background and buttons are
- * provided in this class. By the current version a simple screen touch will start the game.
+ * provided in this class. By the current version a simple screen touch will start the game, which
+ * is a multiplayer race if the game has joined a race server. Until the server has welcomed the
+ * game, the menu shows that it is connecting and does not start the race, so that every player
+ * races on the shared course. If the game has left the race, a single player game is started.
  *
  * @version %I%, %G%
  * @see     State
  */
 public class MenuState extends State {
+    private static final String CONNECTING = "Connecting...";
+
     private Texture background;
     private Texture playBtn;
+    private RaceClient race;
+    private BitmapFont font;
+
+    /**
+     * Creates the menu state for single player games.
+     *
+     * @param gsm   the game state manager
+     * @see         #MenuState(GameStateManager, RaceClient)
+     */
+    public MenuState(GameStateManager gsm) {
+        this(gsm, null);
+    }
 
     /**
      * Creates the menu state. Sets up the game camera and initializes all required textures.
      *
      * @param gsm   the game state manager
+     * @param race  the race client handed to the games started, <code>null</code> for single
+     *              player games
      * @see         State
      * @see         Texture
+     * @see         Assets#getTexture(String)
+     * @see         BitmapFont
      * @see         com.badlogic.gdx.graphics.OrthographicCamera#setToOrtho(boolean, float, float)
      */
-    public MenuState(GameStateManager gsm) {
+    public MenuState(GameStateManager gsm, RaceClient race) {
         super(gsm);
 
+        this.race = race;
         cam.setToOrtho(
                 false,
                 FlappyDemo.WIDTH/2,
                 FlappyDemo.HEIGHT/2);
-        background = new Texture("bg.png");
-        playBtn = new Texture("playBtn.png");
+        background = Assets.getTexture("bg.png");
+        playBtn = Assets.getTexture("playBtn.png");
+        if(race != null) {
+            font = new BitmapFont();
+            ResourceTracker.created(font, "default font");
+        }
     }
 
     /**
      * Handles user input in the game menu. By the current version only a simple screen touch is
      * recognized and will start the game by setting a new play state in the game state manager.
+     * Touches are ignored while connecting to the race.
      *
      * @see Gdx#input#justTouched()
      * @see GameStateManager#set(State)
+     * @see PlayState#PlayState(GameStateManager, RaceClient)
+     * @see #isConnecting()
      */
     @Override
     public void handleInput() {
-        if(Gdx.input.justTouched()){
-            gsm.set(new PlayState(gsm));
+        if(Gdx.input.justTouched() && !isConnecting()){
+            gsm.set(new PlayState(gsm, race != null && race.isOpen() ? race : null));
         }
     }
 
+    /**
+     * Checks whether the game is still waiting for the race server to welcome it.
+     *
+     * @return  <code>true</code> if the race can not be started yet
+     *          <code>false</code> else
+     * @see     RaceClient#isJoined()
+     * @see     RaceClient#isOpen()
+     */
+    private boolean isConnecting() {
+        return race != null && race.isOpen() && !race.isJoined();
+    }
+
     /**
      * Updates the menu state according to the time since the last update and the user input.
      *
@@ -65,7 +111,7 @@ public class MenuState extends State {
 
     /**
      * Renders all sprites of a given sprite batch to the screen with respect to the camera
-     * settings.
+     * settings. While connecting to the race, a note is shown instead of the play button.
      *
      * @param sb    the batch of game sprites
      * @see         com.badlogic.gdx.graphics.OrthographicCamera#combined
@@ -73,15 +119,20 @@ public class MenuState extends State {
      * @see         SpriteBatch#begin()
      * @see         SpriteBatch#end()
      * @see         SpriteBatch#draw(Texture, float, float)
+     * @see         BitmapFont
      */
     @Override
     public void render(SpriteBatch sb) {
         sb.setProjectionMatrix(cam.combined);
         sb.begin();
         sb.draw(background, 0, 0);
-        sb.draw(playBtn,
-                cam.position.x - playBtn.getWidth() / 2,
-                cam.position.y);
+        if(isConnecting()) {
+            font.draw(sb, CONNECTING, 0, cam.position.y, cam.viewportWidth, Align.center, false);
+        } else {
+            sb.draw(playBtn,
+                    cam.position.x - playBtn.getWidth() / 2,
+                    cam.position.y);
+        }
         sb.end();
     }
 
@@ -89,11 +140,16 @@ public class MenuState extends State {
      * Disposes all game objects not subject to the garbage collection. Prevents memory leaks.
      *
      * @see State#dispose()
-     * @see Texture#dispose()
+     * @see Assets#release(Texture)
+     * @see BitmapFont#dispose()
      */
     @Override
     public void dispose() {
-        background.dispose();
-        playBtn.dispose();
+        Assets.release(background);
+        Assets.release(playBtn);
+        if(font != null) {
+            ResourceTracker.disposed(font);
+            font.dispose();
+        }
     }
 }
@@ -0,0 +1,126 @@
+package com.andrejlohn.flappybird.states;
+
+import com.andrejlohn.flappybird.Assets;
+import com.andrejlohn.flappybird.FlappyDemo;
+import com.andrejlohn.flappybird.ResourceTracker;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
+import com.badlogic.gdx.math.Matrix4;
+
+/**
+ * A translucent overlay shown on top of a paused game. The game stays visible but frozen below the
+ * overlay, dimmed by a shade and with the play button on top. A simple screen touch removes the
+ * overlay and the game continues where it was paused.
+ *
+ * @version %I%, %G%
+ * @see     State#isOpaque()
+ * @see     GameStateManager#push(State)
+ */
+public class PauseState extends State {
+
+    private static final Color SHADE = new Color(0, 0, 0, 0.5f);
+
+    private Pixmap shadePixmap;
+    private Texture shade;
+    private Texture playBtn;
+
+    /**
+     * Creates the pause overlay. Sets up the game camera and the shade and button textures.
+     *
+     * @param gsm   the game state manager
+     * @see         State
+     * @see         Pixmap#fill()
+     * @see         PixmapTextureData
+     * @see         Assets#getTexture(String)
+     * @see         ResourceTracker#created(Object, String)
+     * @see         com.badlogic.gdx.graphics.OrthographicCamera#setToOrtho(boolean, float, float)
+     */
+    public PauseState(GameStateManager gsm) {
+        super(gsm);
+
+        cam.setToOrtho(
+                false,
+                FlappyDemo.WIDTH/2,
+                FlappyDemo.HEIGHT/2);
+
+        shadePixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+        shadePixmap.setColor(SHADE);
+        shadePixmap.fill();
+        // Managed, so that the texture is restored from the pixmap after a context loss
+        shade = new Texture(new PixmapTextureData(shadePixmap, null, false, false, true));
+        ResourceTracker.created(shade, "pause shade");
+        playBtn = Assets.getTexture("playBtn.png");
+    }
+
+    /**
+     * Handles user input in the pause overlay. A simple screen touch removes the overlay.
+     *
+     * @see Gdx#input#justTouched()
+     * @see GameStateManager#pop()
+     */
+    @Override
+    protected void handleInput() {
+        if(Gdx.input.justTouched()) {
+            gsm.pop();
+        }
+    }
+
+    /**
+     * Updates the pause overlay according to the user input.
+     *
+     * @param dt    the time since the last update
+     * @see         #handleInput()
+     */
+    @Override
+    public void update(float dt) {
+        handleInput();
+    }
+
+    /**
+     * Renders the shade over the whole screen and the play button on top of it.
+     *
+     * @param sb    the batch of game sprites
+     * @see         com.badlogic.gdx.graphics.OrthographicCamera#combined
+     * @see         SpriteBatch#setProjectionMatrix(Matrix4)
+     * @see         SpriteBatch#draw(Texture, float, float, float, float)
+     */
+    @Override
+    public void render(SpriteBatch sb) {
+        sb.setProjectionMatrix(cam.combined);
+        sb.begin();
+        sb.draw(shade, 0, 0, cam.viewportWidth, cam.viewportHeight);
+        sb.draw(playBtn,
+                cam.position.x - playBtn.getWidth() / 2,
+                cam.position.y);
+        sb.end();
+    }
+
+    /**
+     * Checks whether the state covers the whole screen, which the overlay does not.
+     *
+     * @return  <code>false</code>, as the paused game shines through
+     */
+    @Override
+    public boolean isOpaque() {
+        return false;
+    }
+
+    /**
+     * Disposes all game objects not subject to the garbage collection. Prevents memory leaks.
+     *
+     * @see State#dispose()
+     * @see Assets#release(Texture)
+     * @see ResourceTracker#disposed(Object)
+     */
+    @Override
+    public void dispose() {
+        ResourceTracker.disposed(shade);
+        shade.dispose();
+        shadePixmap.dispose();
+        Assets.release(playBtn);
+    }
+}
@@ -1,199 +1,696 @@
 package com.andrejlohn.flappybird.states;
 
+import com.andrejlohn.flappybird.Assets;
 import com.andrejlohn.flappybird.FlappyDemo;
+import com.andrejlohn.flappybird.ResourceTracker;
+import com.andrejlohn.flappybird.net.RaceClient;
+import com.andrejlohn.flappybird.physics.BirdBody;
+import com.andrejlohn.flappybird.physics.BirdBodyFactory;
+import com.andrejlohn.flappybird.physics.FixedBirdBody;
+import com.andrejlohn.flappybird.physics.FloatBirdBody;
+import com.andrejlohn.flappybird.physics.ReachabilityTable;
 import com.andrejlohn.flappybird.sprites.Bird;
+import com.andrejlohn.flappybird.sprites.ParticleBurst;
+import com.andrejlohn.flappybird.sprites.ParticleSystem;
 import com.andrejlohn.flappybird.sprites.Tube;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Matrix4;
-import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * This state represents the game in play mode. As defined by the state base class it carries the
  * game state manager, the camera and the mouse. In addition it provides all game world objects and
  * handles user input.
+ * The game world is rendered from world snapshots. If {@link FlappyDemo#SIMULATION_THREAD} is set,
+ * the game world is updated on a separate simulation thread, else by the render thread, which
+ * captures a snapshot right away. Either way the world advances in fixed time steps, so that the
+ * physics do not depend on the frame rate.
+ * In a multiplayer race, the tube course is generated from the course seed shared by all players,
+ * and the other players are drawn as translucent birds. The local game does not wait for the
+ * network.
+ * The tube course is generated from a reachability table, which is calculated for fixed steps
+ * of 1/60 seconds and prepared once on a background thread.
  *
  * @version %I%, %G%
  * @see     State
  */
 public class PlayState extends State {
 
-    private static final int TUBE_SPACING = 125;
     private static final int TUBE_COUNT = 4;
-    private static final int GROUND_Y_OFFSET = -50;
+    private static final int CAMERA_OFFSET = 80;
+    private static final float REMOTE_ALPHA = 0.5f;
+    // Time to watch the crash before returning to the menu
+    private static final float CRASH_DELAY = 0.75f;
+    private static final int MAX_PARTICLES = 256;
+    private static final int FEATHER_COUNT = 6;
+    private static final int DEBRIS_COUNT = 40;
+    private static final int DUST_COUNT = 24;
+    private static final ParticleBurst FEATHERS = new ParticleBurst(
+            200, 90, 20, 60, -60, 0.6f, 3, Color.WHITE);
+    private static final ParticleBurst DEBRIS = new ParticleBurst(
+            90, 360, 60, 180, -600, 1, 3, new Color(0xf8b733ff));
+    private static final ParticleBurst DUST = new ParticleBurst(
+            90, 140, 10, 40, 20, 0.75f, 4, new Color(0xded895ff));
+    // Fixed-point and floating point bodies use different snapshot formats
+    private static final int SNAPSHOT_MAGIC = FlappyDemo.FIXED_POINT_PHYSICS ? 0x46425302 : 0x46425301;
+    private static final BirdBodyFactory PHYSICS = FlappyDemo.FIXED_POINT_PHYSICS
+            ? FixedBirdBody.FACTORY
+            : FloatBirdBody.FACTORY;
+
+    /**
+     * The maximum size in bytes of a world snapshot written by {@link #writeSnapshot(ByteBuffer)}.
+     */
+    public static final int SNAPSHOT_SIZE = 32 + BirdBody.SNAPSHOT_SIZE + TUBE_COUNT * 8;
+
+    /**
+     * The horizontal distance between two consecutive tubes.
+     */
+    public static final int TUBE_SPACING = 125;
+
+    /**
+     * The y-coordinate of the ground texture, which reaches below the screen.
+     */
+    public static final int GROUND_Y_OFFSET = -50;
+
+    /**
+     * The height of the ground surface, which is the top edge of the ground texture. The player
+     * character crashes when reaching it.
+     */
+    public static final int GROUND_Y = GROUND_Y_OFFSET + 112;
+
+    // Shared by all levels, as the table rows are expensive to calculate
+    private static FutureTask<ReachabilityTable> course;
 
     private Bird bird;
     private Texture bg;
     private Texture ground;
     private Vector2 groundPos1, groundPos2;
+    private RandomXS128 rand;
 
     private Array<Tube> tubes;
+    private SpriteCache tubeCache;
+    private IntArray tubeCacheIds;
+    private float[] cachedTubeX;
+
+    private ParticleSystem particles;
+    private boolean crashed;
+    private float crashTime;
+    private float lag;
+
+    private boolean gameOver;
+    private boolean paused;
+    private SnapshotBuffer snapshots;
+    private Simulation simulation;
+    private RaceClient race;
 
     /**
-     * Creates the play state. Sets up the camera, game world objects and textures.
+     * Creates the play state for a single player game.
      *
      * @param gsm   the game state manager
+     * @see         #PlayState(GameStateManager, RaceClient)
+     */
+    public PlayState(GameStateManager gsm) {
+        this(gsm, (RaceClient) null);
+    }
+
+    /**
+     * Creates the play state. Sets up the camera, game world objects and textures. The tube
+     * geometry is uploaded once into a sprite cache, with one cache entry per tube. If the race
+     * client has joined a race, the tubes are generated from the races course seed. Every gap is
+     * generated passable from the previous one. If the tube course has not been prepared in
+     * advance, this waits for the preparation.
+     *
+     * @param gsm   the game state manager
+     * @param race  the race client, <code>null</code> for a single player game
      * @see         State
+     * @see         RaceClient#getCourseSeed()
      * @see         Bird
      * @see         Texture
+     * @see         Assets#getTexture(String)
+     * @see         SpriteCache
+     * @see         ParticleSystem
+     * @see         RandomXS128
+     * @see         #getReachability()
      * @see         Array#add(Object)
      * @see         OrthographicCamera#setToOrtho(boolean, float, float)
+     * @see         Simulation#start()
      */
-    public PlayState(GameStateManager gsm) {
+    public PlayState(GameStateManager gsm, RaceClient race) {
         super(gsm);
 
-        bird = new Bird(50, 300);
+        this.race = race;
+        rand = race != null && race.isJoined() ? new RandomXS128(race.getCourseSeed()) : new RandomXS128();
+        bird = new Bird(50, 300, PHYSICS);
         cam.setToOrtho(false, FlappyDemo.WIDTH/2, FlappyDemo.HEIGHT/2);
-        bg = new Texture("bg.png");
-        ground = new Texture("ground.png");
+        bg = Assets.getTexture("bg.png");
+        ground = Assets.getTexture("ground.png");
         groundPos1 = new Vector2(cam.position.x - cam.viewportWidth/2, GROUND_Y_OFFSET);
         groundPos2 = new Vector2((cam.position.x - cam.viewportWidth/2) + ground.getWidth(), GROUND_Y_OFFSET);
 
         tubes = new Array<Tube>();
+        tubeCache = new SpriteCache(TUBE_COUNT * 2, false);
+        ResourceTracker.created(tubeCache, "tube cache");
+        tubeCacheIds = new IntArray(TUBE_COUNT);
+        cachedTubeX = new float[TUBE_COUNT];
+
+        ReachabilityTable reachability = getReachability();
 
         // Start at i=1 to not render a tube right at the start of the level
+        float previousTopY = Float.NaN;
         for(int i=1; i<=TUBE_COUNT; i++) {
-            tubes.add(new Tube(i * (TUBE_SPACING + Tube.TUBE_WIDTH)));
+            Tube tube = new Tube(i * (TUBE_SPACING + Tube.TUBE_WIDTH), previousTopY, rand, reachability, TUBE_SPACING);
+            previousTopY = tube.getPosTopTube().y;
+            tubes.add(tube);
+            tubeCache.beginCache();
+            addToCache(tube, tube.getPosTopTube().x, tube.getPosTopTube().y, tube.getPosBotTube().y);
+            tubeCacheIds.add(tubeCache.endCache());
+            cachedTubeX[i - 1] = tube.getPosTopTube().x;
+        }
+
+        particles = new ParticleSystem(MAX_PARTICLES);
+        snapshots = new SnapshotBuffer(TUBE_COUNT);
+        capture();
+
+        if(FlappyDemo.SIMULATION_THREAD) {
+            simulation = new Simulation(this);
+            simulation.start();
+        }
+    }
+
+    /**
+     * Starts calculating the reachability table of the tube course on a background thread, unless
+     * this has happened already. The calculation takes a noticeable fraction of a second, so
+     * preparing the course on application start keeps the first game from stalling the render
+     * thread. Must be called by the render thread, as the size of the player character is taken
+     * from its animation.
+     *
+     * @see #getReachability()
+     * @see Bird#getAnimation()
+     * @see Tube#createReachabilityTable(int, int, int, int)
+     * @see FutureTask
+     */
+    public static void prepareCourse() {
+        if(course != null) {
+            return;
+        }
+
+        TextureRegion frame = Bird.getAnimation().getFrame(0);
+        final int bodyWidth = frame.getRegionWidth();
+        final int bodyHeight = frame.getRegionHeight();
+
+        course = new FutureTask<ReachabilityTable>(new Callable<ReachabilityTable>() {
+            @Override
+            public ReachabilityTable call() {
+                return Tube.createReachabilityTable(bodyWidth, bodyHeight, GROUND_Y, TUBE_SPACING);
+            }
+        });
+        Thread thread = new Thread(course, "Course preparation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets the reachability table of the tube course, preparing the course first if required and
+     * waiting for the preparation to finish. An interrupt while waiting is restored afterwards.
+     *
+     * @return  the reachability table
+     * @throws  IllegalStateException if the tubes can not be passed with the course spacing
+     * @see     #prepareCourse()
+     * @see     FutureTask#get()
+     */
+    private static ReachabilityTable getReachability() {
+        prepareCourse();
+
+        boolean interrupted = false;
+        try {
+            while(true) {
+                try {
+                    return course.get();
+                } catch(InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Course preparation failed", e.getCause());
+        } finally {
+            if(interrupted) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
 
+    /**
+     * Creates the play state from a world snapshot written by {@link #writeSnapshot(ByteBuffer)}.
+     * The game continues exactly where the snapshot was taken.
+     *
+     * @param gsm       the game state manager
+     * @param snapshot  the snapshot buffer
+     * @throws          IllegalArgumentException if the buffer does not contain a world snapshot
+     * @see             #PlayState(GameStateManager)
+     * @see             Bird#readFrom(ByteBuffer)
+     * @see             Tube#readFrom(ByteBuffer)
+     * @see             RandomXS128#setState(long, long)
+     */
+    public PlayState(GameStateManager gsm, ByteBuffer snapshot) {
+        this(gsm);
+        pause();
+
+        try {
+            if(snapshot.getInt() != SNAPSHOT_MAGIC) {
+                throw new IllegalArgumentException("Not a world snapshot");
+            }
+
+            long seed0 = snapshot.getLong();
+            rand.setState(seed0, snapshot.getLong());
+            bird.readFrom(snapshot);
+            groundPos1.x = snapshot.getFloat();
+            groundPos2.x = snapshot.getFloat();
+            for(int i=0; i<tubes.size; i++) {
+                tubes.get(i).readFrom(snapshot);
+                // Forces the tube to be cached again on the next render
+                cachedTubeX[i] = Float.NaN;
+            }
+        } catch(BufferUnderflowException e) {
+            dispose();
+            throw new IllegalArgumentException("Incomplete world snapshot", e);
+        } catch(IllegalArgumentException e) {
+            dispose();
+            throw e;
+        }
+
+        capture();
+        resume();
+    }
+
+    /**
+     * Adds the top and bottom tube of a tube object to the sprite cache currently being defined.
+     *
+     * @param tube      the tube to add
+     * @param x         the x-coordinate of the tube
+     * @param topY      the y-coordinate of the top tube
+     * @param bottomY   the y-coordinate of the bottom tube
+     * @see             SpriteCache#add(Texture, float, float)
+     */
+    private void addToCache(Tube tube, float x, float topY, float bottomY) {
+        tubeCache.add(tube.getTopTube(), x, topY);
+        tubeCache.add(tube.getBottomTube(), x, bottomY);
+    }
+
+    /**
+     * Redefines the sprite cache entry of a single tube. This is only required after the tube has
+     * been repositioned, as the tubes are static within the game world and only the camera moves.
+     *
+     * @param index the index of the tube
+     * @param world the snapshot to take the tube position from
+     * @see         SpriteCache#beginCache(int)
+     * @see         SpriteCache#endCache()
+     */
+    private void recache(int index, WorldSnapshot world) {
+        tubeCache.beginCache(tubeCacheIds.get(index));
+        addToCache(tubes.get(index), world.tubeX[index], world.tubeTopY[index], world.tubeBottomY[index]);
+        tubeCache.endCache();
+        cachedTubeX[index] = world.tubeX[index];
+    }
+
     /**
      * Updates the position of the ground texture to create the impression of movement along an
      * infinite floor.
      *
-     * @see Vector2#x
-     * @see Vector2#add(float, float)
-     * @see Texture#getWidth()
-     * @see OrthographicCamera#position
-     * @see OrthographicCamera#viewportWidth
+     * @param left  the x-coordinate of the left edge of the view
+     * @see         Vector2#x
+     * @see         Vector2#add(float, float)
+     * @see         Texture#getWidth()
      */
-    private void updateGround() {
-        if(cam.position.x - cam.viewportWidth/2 > groundPos1.x + ground.getWidth()) {
+    private void updateGround(float left) {
+        if(left > groundPos1.x + ground.getWidth()) {
             groundPos1.add(ground.getWidth() * 2, 0);
         }
-        if(cam.position.x - cam.viewportWidth/2 > groundPos2.x + ground.getWidth()) {
+        if(left > groundPos2.x + ground.getWidth()) {
             groundPos2.add(ground.getWidth() * 2, 0);
         }
     }
 
     /**
      * Handles user input. By the current version only a simple screen touch is recognized and
-     * causes a jump of the player character.
+     * causes a jump of the player character, which loses a few feathers. With a simulation
+     * thread, the jump is handed to the simulation, only the sound effect is played right away.
+     * Once the game is over, input is ignored. On desktop the game is paused with the P or escape
+     * key, which shows the pause overlay.
      *
      * @see Bird#jump()
+     * @see Bird#playJumpSound()
+     * @see Simulation#requestJump()
+     * @see ParticleSystem#emit(float, float, int, ParticleBurst)
+     * @see PauseState
      * @see Gdx#input#justTouched
+     * @see Gdx#input#isKeyJustPressed(int)
      */
     @Override
     protected void handleInput() {
-        if(Gdx.input.justTouched()) {
-            bird.jump();
+        WorldSnapshot world = snapshots.read();
+
+        if(Gdx.input.isKeyJustPressed(Input.Keys.P) || Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
+            gsm.push(new PauseState(gsm));
+            return;
+        }
+
+        if(Gdx.input.justTouched() && !world.gameOver) {
+            if(simulation != null) {
+                simulation.requestJump();
+                bird.playJumpSound();
+            } else {
+                bird.jump();
+            }
+            particles.emit(
+                    world.birdX + world.birdFrame.getRegionWidth() / 2,
+                    world.birdY + world.birdFrame.getRegionHeight() / 2,
+                    FEATHER_COUNT,
+                    FEATHERS);
         }
     }
 
     /**
-     * Updates the game world (the camera, objects and sprites) according to the time passed since
-     * the last update and the user input.
+     * Handles user input and updates the game world according to the time passed since the last
+     * update, unless a simulation thread does so. The world is advanced by as many fixed steps as
+     * fit into the time passed, the remainder is carried over to the next update. The latest
+     * state of the player character is handed to the race client. Once the game is over, the world
+     * stands still, the player character bursts into debris and dust and shortly after the game
+     * returns to the menu. The particles are updated on the render thread, as they are not part of
+     * the game world.
      *
      * @param dt    the time since the last update
-     * @see         #TUBE_SPACING
-     * @see         #TUBE_COUNT
      * @see         #handleInput()
-     * @see         #updateGround()
+     * @see         #step(float)
+     * @see         #capture()
+     * @see         RaceClient#setPlayerState(float, float, boolean)
+     * @see         ParticleSystem#update(float)
+     * @see         ParticleSystem#emit(float, float, int, ParticleBurst)
      * @see         GameStateManager#set(State)
+     */
+    @Override
+    public void update(float dt) {
+        handleInput();
+        if(paused) {
+            return;
+        }
+
+        if(simulation == null && !gameOver) {
+            lag = Math.min(lag + dt, Simulation.STEP * Simulation.MAX_LAG_STEPS);
+            while(lag >= Simulation.STEP && !gameOver) {
+                step(Simulation.STEP);
+                lag -= Simulation.STEP;
+            }
+            capture();
+        }
+
+        WorldSnapshot world = snapshots.read();
+        if(race != null) {
+            race.setPlayerState(world.birdX, world.birdY, !world.gameOver);
+        }
+        particles.update(dt);
+        if(world.gameOver) {
+            if(!crashed) {
+                crashed = true;
+                float centerX = world.birdX + world.birdFrame.getRegionWidth() / 2;
+                particles.emit(centerX, world.birdY + world.birdFrame.getRegionHeight() / 2, DEBRIS_COUNT, DEBRIS);
+                particles.emit(centerX, world.birdY, DUST_COUNT, DUST);
+            }
+            crashTime += dt;
+            if(crashTime >= CRASH_DELAY) {
+                gsm.set(new MenuState(gsm, race));
+            }
+        }
+    }
+
+    /**
+     * Updates the game world (the objects and sprites) according to the time passed since the
+     * last update. This does not use any OpenGL resources and may be called by the simulation
+     * thread. A tube left behind is moved to the front, right after the tube preceding it in the
+     * list.
+     *
+     * @param dt    the time since the last update
+     * @see         #TUBE_SPACING
+     * @see         #TUBE_COUNT
+     * @see         #updateGround(float)
      * @see         Texture#getHeight()
-     * @see         Texture#getWidth()
      * @see         Bird#update(float)
      * @see         Bird#getPosition()
-     * @see         Bird#getBounds()
+     * @see         Bird#getBody()
      * @see         Tube#TUBE_WIDTH
-     * @see         Tube#reposition(float)
-     * @see         Tube#getPosBotTube()
+     * @see         Tube#reposition(float, float)
      * @see         Tube#getPosTopTube()
-     * @see         Tube#collides(Rectangle)
-     * @see         OrthographicCamera#update()
+     * @see         Tube#collides(com.andrejlohn.flappybird.physics.BirdBody)
      * @see         OrthographicCamera#viewportWidth
-     * @see         OrthographicCamera#position#
      */
-    @Override
-    public void update(float dt) {
-        handleInput();
-        updateGround();
+    void step(float dt) {
         bird.update(dt);
-        cam.position.x = bird.getPosition().x + 80;
+        float left = bird.getPosition().x + CAMERA_OFFSET - cam.viewportWidth/2;
+        updateGround(left);
 
-        for(Tube tube: tubes) {
-            if(cam.position.x - cam.viewportWidth/2 > tube.getPosTopTube().x + tube.getTopTube().getWidth()) {
-                tube.reposition(tube.getPosTopTube().x + (Tube.TUBE_WIDTH + TUBE_SPACING) * TUBE_COUNT);
+        for(int i=0; i<tubes.size; i++) {
+            Tube tube = tubes.get(i);
+            if(left > tube.getPosTopTube().x + Tube.TUBE_WIDTH) {
+                Tube previous = tubes.get((i + tubes.size - 1) % tubes.size);
+                tube.reposition(
+                        tube.getPosTopTube().x + (Tube.TUBE_WIDTH + TUBE_SPACING) * TUBE_COUNT,
+                        previous.getPosTopTube().y);
             }
 
-            if(tube.collides(bird.getBounds())) {
-                gsm.set(new MenuState(gsm));
-                break;
+            if(tube.collides(bird.getBody())) {
+                gameOver = true;
             }
         }
 
-        if(bird.getPosition().y <= ground.getHeight() + GROUND_Y_OFFSET) {
-            gsm.set(new MenuState(gsm));
+        if(bird.getBody().isAtOrBelow(GROUND_Y)) {
+            gameOver = true;
         }
+    }
 
-        cam.update();
+    /**
+     * Pushes the player character upwards without playing the sound effect.
+     *
+     * @see com.andrejlohn.flappybird.physics.BirdBody#jump()
+     */
+    void jump() {
+        bird.getBody().jump();
+    }
+
+    /**
+     * Checks whether the player character has collided with a tube or the ground.
+     *
+     * @return  <code>true</code> if the game is over
+     *          <code>false</code> else
+     */
+    boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Captures the current game world in a snapshot and publishes it for rendering.
+     *
+     * @see SnapshotBuffer#getBack()
+     * @see SnapshotBuffer#publish()
+     */
+    void capture() {
+        WorldSnapshot world = snapshots.getBack();
+
+        world.cameraX = bird.getPosition().x + CAMERA_OFFSET;
+        world.birdFrame = bird.getTexture();
+        world.birdX = bird.getPosition().x;
+        world.birdY = bird.getPosition().y;
+        world.groundX1 = groundPos1.x;
+        world.groundX2 = groundPos2.x;
+        for(int i=0; i<tubes.size; i++) {
+            Tube tube = tubes.get(i);
+            world.tubeX[i] = tube.getPosTopTube().x;
+            world.tubeTopY[i] = tube.getPosTopTube().y;
+            world.tubeBottomY[i] = tube.getPosBotTube().y;
+        }
+        world.gameOver = gameOver;
+
+        snapshots.publish();
     }
 
     /**
-     * Renders all sprites of a given sprite batch to the screen with respect to the camera
-     * settings.
+     * Renders the latest world snapshot to the screen with respect to the camera settings. The
+     * tubes are not part of the sprite batch but drawn from the sprite cache in between, so that
+     * the ground is still drawn on top of them. A tube is only cached again if it has been
+     * repositioned. The particles are drawn in front of the player character, but behind the
+     * tubes and the ground.
      *
      * @param sb    the batch of game sprites
-     * @see         com.badlogic.gdx.math.Vector3
-     * @see         Vector2
+     * @see         SnapshotBuffer#read()
      * @see         OrthographicCamera#combined
      * @see         OrthographicCamera#viewportWidth
      * @see         OrthographicCamera#position
-     * @see         Tube#getTopTube()
-     * @see         Tube#getBottomTube()
-     * @see         Tube#getPosTopTube()
-     * @see         Tube#getPosBotTube()
+     * @see         OrthographicCamera#update()
      * @see         SpriteBatch#setProjectionMatrix(Matrix4)
      * @see         SpriteBatch#begin()
      * @see         SpriteBatch#end()
      * @see         SpriteBatch#draw(Texture, float, float)
+     * @see         SpriteCache#setProjectionMatrix(Matrix4)
+     * @see         SpriteCache#draw(int)
+     * @see         #drawRemoteBirds(SpriteBatch, WorldSnapshot)
+     * @see         ParticleSystem#draw(SpriteBatch)
      */
     @Override
     public void render(SpriteBatch sb) {
+        WorldSnapshot world = snapshots.read();
+
+        cam.position.x = world.cameraX;
+        cam.update();
+
         sb.setProjectionMatrix(cam.combined);
         sb.begin();
-
         sb.draw(bg, cam.position.x - (cam.viewportWidth / 2), 0);
-        sb.draw(bird.getTexture(), bird.getPosition().x, bird.getPosition().y);
-        for(Tube tube: tubes) {
-            sb.draw(tube.getTopTube(), tube.getPosTopTube().x, tube.getPosTopTube().y);
-            sb.draw(tube.getBottomTube(), tube.getPosBotTube().x, tube.getPosBotTube().y);
+        if(race != null) {
+            drawRemoteBirds(sb, world);
+        }
+        sb.draw(world.birdFrame, world.birdX, world.birdY);
+        particles.draw(sb);
+        sb.end();
+
+        // Cache entries can only be redefined outside of begin and end
+        for(int i=0; i<tubeCacheIds.size; i++) {
+            if(cachedTubeX[i] != world.tubeX[i]) {
+                recache(i, world);
+            }
+        }
+        tubeCache.setProjectionMatrix(cam.combined);
+        tubeCache.begin();
+        for(int i=0; i<tubeCacheIds.size; i++) {
+            tubeCache.draw(tubeCacheIds.get(i));
         }
-        sb.draw(ground, groundPos1.x, groundPos1.y);
-        sb.draw(ground, groundPos2.x, groundPos2.y);
+        tubeCache.end();
+
+        sb.begin();
+        sb.draw(ground, world.groundX1, GROUND_Y_OFFSET);
+        sb.draw(ground, world.groundX2, GROUND_Y_OFFSET);
 
         sb.end();
     }
 
+    /**
+     * Draws the other players of a race behind the player character. They are translucent, as
+     * they do not collide with the player character.
+     *
+     * @param sb    the batch of game sprites, between begin and end
+     * @param world the snapshot to take the animation frame from
+     * @see         RaceClient#getRemoteX(int)
+     * @see         RaceClient#getRemoteY(int)
+     * @see         SpriteBatch#setColor(Color)
+     */
+    private void drawRemoteBirds(SpriteBatch sb, WorldSnapshot world) {
+        sb.setColor(1, 1, 1, REMOTE_ALPHA);
+        for(int i=0; i<race.getRemoteCount(); i++) {
+            sb.draw(world.birdFrame, race.getRemoteX(i), race.getRemoteY(i));
+        }
+        sb.setColor(Color.WHITE);
+    }
+
+    /**
+     * Writes the game world to a snapshot. This contains the player character, the tube and ground
+     * positions as well as the state of the random number generator, so that the tubes following
+     * a restore are the same as without interruption. A running simulation thread has to be
+     * paused first. A game which is already over is not written, as it would end right after a
+     * restore.
+     *
+     * @param buffer    the snapshot buffer, with at least {@link #SNAPSHOT_SIZE} bytes remaining
+     * @return          <code>true</code> if a snapshot was written
+     *                  <code>false</code> if the game is over
+     * @see             #PlayState(GameStateManager, ByteBuffer)
+     * @see             Bird#writeTo(ByteBuffer)
+     * @see             Tube#writeTo(ByteBuffer)
+     * @see             RandomXS128#getState(int)
+     */
+    @Override
+    public boolean writeSnapshot(ByteBuffer buffer) {
+        if(gameOver) {
+            return false;
+        }
+
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.putLong(rand.getState(0));
+        buffer.putLong(rand.getState(1));
+        bird.writeTo(buffer);
+        buffer.putFloat(groundPos1.x);
+        buffer.putFloat(groundPos2.x);
+        for(Tube tube: tubes) {
+            tube.writeTo(buffer);
+        }
+        return true;
+    }
+
+    /**
+     * Freezes the game world and stops the simulation thread, if there is one.
+     *
+     * @see Simulation#stop()
+     */
+    @Override
+    public void pause() {
+        paused = true;
+        if(simulation != null) {
+            simulation.stop();
+        }
+    }
+
+    /**
+     * Unfreezes the game world and restarts the simulation thread, if there is one and the game
+     * is not over yet.
+     *
+     * @see Simulation#start()
+     */
+    @Override
+    public void resume() {
+        paused = false;
+        if(simulation != null && !gameOver) {
+            simulation.start();
+        }
+    }
+
     /**
      * Disposes all game objects not subject to the garbage collection. Prevents memory leaks.
+     * The simulation thread is stopped first.
      *
+     * @see #pause()
      * @see State#dispose()
-     * @see Texture#dispose()
+     * @see Assets#release(Texture)
      * @see Bird#dispose()
      * @see Tube#dispose()
+     * @see SpriteCache#dispose()
+     * @see ResourceTracker#disposed(Object)
+     * @see ParticleSystem#dispose()
      */
     @Override
     public void dispose() {
-        bg.dispose();
+        pause();
+        Assets.release(bg);
         bird.dispose();
-        ground.dispose();
+        Assets.release(ground);
         for(Tube tube: tubes) {
             tube.dispose();
         }
+        ResourceTracker.disposed(tubeCache);
+        tubeCache.dispose();
+        particles.dispose();
     }
 }
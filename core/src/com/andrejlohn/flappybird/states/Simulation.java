@@ -0,0 +1,121 @@
+package com.andrejlohn.flappybird.states;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The simulation thread of the play state. The game world is updated with a fixed time step on a
+ * dedicated thread, so that updating and rendering overlap on multi-core devices. Every update is
+ * published as a world snapshot, the render thread only draws the latest one.
+ * All state changes, textures and sounds stay on the render thread, as they require the OpenGL
+ * context.
+ *
+ * @version %I%, %G%
+ * @see     PlayState
+ * @see     SnapshotBuffer
+ */
+class Simulation implements Runnable {
+
+    // The reachability table of the tube course is calculated for this step
+    static final float STEP = 1 / 60f;
+    // Steps after which the game world gives up catching up, on either thread
+    static final int MAX_LAG_STEPS = 5;
+
+    private static final long STEP_NANOS = 1000000000L / 60;
+
+    private final PlayState world;
+    private final AtomicInteger jumps = new AtomicInteger();
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * Creates the simulation of a play states game world. The simulation is not started yet.
+     *
+     * @param world the play state to simulate
+     */
+    Simulation(PlayState world) {
+        this.world = world;
+    }
+
+    /**
+     * Starts the simulation thread, unless it is running already.
+     *
+     * @see Thread#start()
+     */
+    void start() {
+        if(thread != null) {
+            return;
+        }
+
+        running = true;
+        thread = new Thread(this, "Simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the simulation thread and waits for it to finish its current update. Afterwards the
+     * game world may safely be accessed by the calling thread.
+     *
+     * @see Thread#join()
+     */
+    void stop() {
+        if(thread == null) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(thread);
+        boolean interrupted = false;
+        while(thread.isAlive()) {
+            try {
+                thread.join();
+            } catch(InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        thread = null;
+
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Requests a jump of the player character with the next update.
+     */
+    void requestJump() {
+        jumps.incrementAndGet();
+    }
+
+    /**
+     * Updates the game world in fixed time steps until the simulation is stopped or the game is
+     * over. After a long stall the simulation does not try to catch up, but continues from the
+     * current time.
+     *
+     * @see PlayState#step(float)
+     * @see PlayState#capture()
+     */
+    @Override
+    public void run() {
+        long next = System.nanoTime();
+
+        while(running && !world.isGameOver()) {
+            if(jumps.getAndSet(0) > 0) {
+                world.jump();
+            }
+            world.step(STEP);
+            world.capture();
+
+            next += STEP_NANOS;
+            if(System.nanoTime() - next > STEP_NANOS * MAX_LAG_STEPS) {
+                next = System.nanoTime();
+            }
+
+            long wait;
+            while(running && (wait = next - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+}
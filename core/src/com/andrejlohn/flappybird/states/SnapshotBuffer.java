@@ -0,0 +1,65 @@
+package com.andrejlohn.flappybird.states;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free handoff of world snapshots from the simulation to the renderer. The simulation writes
+ * to its back snapshot while the renderer reads its front snapshot. A third snapshot is in transit
+ * between both, so that neither side ever has to wait for the other. The renderer always gets the
+ * latest published snapshot, older snapshots are skipped.
+ *
+ * @version %I%, %G%
+ * @see     WorldSnapshot
+ * @see     Simulation
+ */
+class SnapshotBuffer {
+
+    private static final int FRESH = 4;
+
+    private final WorldSnapshot[] snapshots;
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+
+    /**
+     * Creates the buffer with three empty snapshots.
+     *
+     * @param tubeCount the number of tubes in the game world
+     */
+    SnapshotBuffer(int tubeCount) {
+        snapshots = new WorldSnapshot[] {
+                new WorldSnapshot(tubeCount),
+                new WorldSnapshot(tubeCount),
+                new WorldSnapshot(tubeCount)};
+    }
+
+    /**
+     * Gets the snapshot to be written by the simulation.
+     *
+     * @return  the back snapshot
+     */
+    WorldSnapshot getBack() {
+        return snapshots[back];
+    }
+
+    /**
+     * Publishes the back snapshot to the renderer. The simulation continues with a new back
+     * snapshot, which has to be written completely before it is published.
+     */
+    void publish() {
+        back = pending.getAndSet(back | FRESH) & ~FRESH;
+    }
+
+    /**
+     * Gets the latest published snapshot for rendering. The snapshot stays valid until the next
+     * call of this method.
+     *
+     * @return  the front snapshot
+     */
+    WorldSnapshot read() {
+        if((pending.get() & FRESH) != 0) {
+            front = pending.getAndSet(front) & ~FRESH;
+        }
+        return snapshots[front];
+    }
+}
@@ -4,6 +4,8 @@ import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Vector3;
 
+import java.nio.ByteBuffer;
+
 /**
  * Abstract class to represent a state of the game. A state is defined by the objects displayed
  * in the state and its behavior in respective to user input. The game states will be handled by
@@ -50,6 +52,54 @@ public abstract class State {
      */
     public abstract void render(SpriteBatch sb);
 
+    /**
+     * Checks whether the state covers the whole screen. States below an opaque state are not
+     * rendered. By default a state is opaque.
+     *
+     * @return  <code>true</code> if the state is opaque
+     *          <code>false</code> if the states below shine through
+     */
+    public boolean isOpaque() {
+        return true;
+    }
+
+    /**
+     * Checks whether the state keeps being updated while it is covered by another state. By
+     * default a covered state is frozen and paused.
+     *
+     * @return  <code>true</code> if the state is updated while covered
+     *          <code>false</code> else
+     */
+    public boolean updatesWhenCovered() {
+        return false;
+    }
+
+    /**
+     * Pauses the state when the application is paused or the state gets covered. By default there
+     * is nothing to pause.
+     */
+    public void pause() {
+    }
+
+    /**
+     * Resumes the state after the application or the state has been paused. By default there is
+     * nothing to resume.
+     */
+    public void resume() {
+    }
+
+    /**
+     * Writes the state of the game world to a snapshot, which allows to continue the game after
+     * the application was stopped. By default a state has no game world worth saving.
+     *
+     * @param buffer    the snapshot buffer
+     * @return          <code>true</code> if a snapshot was written
+     *                  <code>false</code> else
+     */
+    public boolean writeSnapshot(ByteBuffer buffer) {
+        return false;
+    }
+
     /**
      * Disposes all game objects not subject to the garbage collection. Prevents memory leaks.
      */
@@ -0,0 +1,33 @@
+package com.andrejlohn.flappybird.states;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Everything required to render a single frame of the play state. A snapshot is written by the
+ * simulation and must not be changed anymore once it has been published to the renderer.
+ *
+ * @version %I%, %G%
+ * @see     SnapshotBuffer
+ */
+class WorldSnapshot {
+
+    float cameraX;
+    TextureRegion birdFrame;
+    float birdX, birdY;
+    float groundX1, groundX2;
+    final float[] tubeX;
+    final float[] tubeTopY;
+    final float[] tubeBottomY;
+    boolean gameOver;
+
+    /**
+     * Creates an empty snapshot.
+     *
+     * @param tubeCount the number of tubes in the game world
+     */
+    WorldSnapshot(int tubeCount) {
+        tubeX = new float[tubeCount];
+        tubeTopY = new float[tubeCount];
+        tubeBottomY = new float[tubeCount];
+    }
+}
@@ -5,7 +5,8 @@ import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import com.andrejlohn.flappybird.FlappyDemo;
 
 /**
- * The launcher to run the game as a desktop application as provided by libGDX.
+ * The launcher to run the game as a desktop application as provided by libGDX. The address of a
+ * race server may be given as the only argument to join a multiplayer race.
  *
  * @version %I%, %G%
  * @see     LwjglApplication
@@ -17,6 +18,6 @@ public class DesktopLauncher {
 		config.width = FlappyDemo.WIDTH;
 		config.height = FlappyDemo.HEIGHT;
 		config.title = FlappyDemo.TITLE;
-		new LwjglApplication(new FlappyDemo(), config);
+		new LwjglApplication(new FlappyDemo(arg.length > 0 ? arg[0] : null), config);
 	}
 }
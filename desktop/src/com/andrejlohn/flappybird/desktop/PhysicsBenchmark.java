@@ -0,0 +1,67 @@
+package com.andrejlohn.flappybird.desktop;
+
+import com.andrejlohn.flappybird.physics.BirdBody;
+import com.andrejlohn.flappybird.physics.FixedBirdBody;
+import com.andrejlohn.flappybird.physics.FloatBirdBody;
+import com.badlogic.gdx.math.Rectangle;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compares the speed of the floating point and fixed-point physics of the player character. Both
+ * bodies run the same scripted flight with a jump every {@link #JUMP_INTERVAL} steps and a tube
+ * collision check each step. The final state of each body is printed as a hash, which has to be
+ * the same on every platform for the fixed-point body.
+ *
+ * @version %I%, %G%
+ * @see     BirdBody
+ */
+public class PhysicsBenchmark {
+
+    private static final int STEPS = 5000000;
+    private static final int ROUNDS = 5;
+    private static final int JUMP_INTERVAL = 40;
+    private static final float DT = 1 / 60f;
+
+    /**
+     * Runs the benchmark and prints the time per step of each body.
+     *
+     * @param arg   not used
+     */
+    public static void main (String[] arg) {
+        for(int round=1; round<=ROUNDS; round++) {
+            System.out.println("Round " + round);
+            run("float", new FloatBirdBody(50, 300, 34, 24));
+            run("fixed", new FixedBirdBody(50, 300, 34, 24));
+        }
+    }
+
+    /**
+     * Runs the scripted flight for a single body.
+     *
+     * @param name  the name of the body printed with the results
+     * @param body  the body
+     */
+    private static void run(String name, BirdBody body) {
+        Rectangle tube = new Rectangle(177, 250, 52, 320);
+        int collisions = 0;
+        long start = System.nanoTime();
+
+        for(int i=0; i<STEPS; i++) {
+            if(i % JUMP_INTERVAL == 0) {
+                body.jump();
+            }
+            body.step(DT);
+            if(body.overlaps(tube)) {
+                collisions++;
+            }
+        }
+
+        long time = System.nanoTime() - start;
+        ByteBuffer state = ByteBuffer.allocate(BirdBody.SNAPSHOT_SIZE);
+        body.writeTo(state);
+        System.out.println(String.format("  %s: %.2f ns/step, %d collisions, state hash %08x",
+                name, time / (double) STEPS, collisions, Arrays.hashCode(state.array())));
+    }
+}
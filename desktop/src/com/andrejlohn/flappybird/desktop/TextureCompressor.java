@@ -0,0 +1,52 @@
+package com.andrejlohn.flappybird.desktop;
+
+import com.andrejlohn.flappybird.Assets;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.glutils.ETC1;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+import java.io.File;
+
+/**
+ * Build tool to create the ETC1 compressed variants of the games opaque textures. ETC1 does not
+ * support transparency, so only textures without an alpha channel are compressed. The compressed
+ * textures are written next to their source with the suffix ".etc1" and picked up by the games
+ * texture loader.
+ *
+ * @version %I%, %G%
+ * @see     ETC1
+ * @see     Assets#OPAQUE_TEXTURES
+ */
+public class TextureCompressor {
+
+    /**
+     * Compresses all opaque textures in the given assets directory.
+     *
+     * @param arg   the assets directory, the working directory if omitted
+     * @see         ETC1#encodeImagePKM(Pixmap)
+     * @see         Assets#OPAQUE_TEXTURES
+     */
+    public static void main (String[] arg) {
+        GdxNativesLoader.load();
+        File assetsDir = new File(arg.length > 0 ? arg[0] : ".");
+
+        for(String fileName: Assets.OPAQUE_TEXTURES) {
+            FileHandle source = new FileHandle(new File(assetsDir, fileName));
+            FileHandle target = source.sibling(source.nameWithoutExtension() + ".etc1");
+            Pixmap image = new Pixmap(source);
+            Pixmap rgb = new Pixmap(image.getWidth(), image.getHeight(), Pixmap.Format.RGB888);
+
+            rgb.drawPixmap(image, 0, 0);
+            ETC1.ETC1Data data = ETC1.encodeImagePKM(rgb);
+            data.write(target);
+            System.out.println(fileName + ": " + image.getWidth() * image.getHeight() * 4
+                    + " bytes uncompressed, " + data.compressedData.capacity()
+                    + " bytes ETC1 -> " + target.name());
+
+            data.dispose();
+            rgb.dispose();
+            image.dispose();
+        }
+    }
+}
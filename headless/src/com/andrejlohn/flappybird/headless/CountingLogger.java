@@ -0,0 +1,67 @@
+package com.andrejlohn.flappybird.headless;
+
+import com.badlogic.gdx.ApplicationLogger;
+
+/**
+ * A logger which counts the errors logged by the game and passes all messages on to another
+ * logger. This lets tests fail on problems the game only reports, like assets left in use on
+ * exit.
+ *
+ * @version %I%, %G%
+ * @see     ApplicationLogger
+ */
+class CountingLogger implements ApplicationLogger {
+
+    private final ApplicationLogger logger;
+    private int errors;
+
+    /**
+     * Creates the logger.
+     *
+     * @param logger    the logger to pass all messages on to
+     */
+    CountingLogger(ApplicationLogger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Gets the number of errors logged so far.
+     *
+     * @return  the number of errors
+     */
+    int getErrorCount() {
+        return errors;
+    }
+
+    @Override
+    public void log(String tag, String message) {
+        logger.log(tag, message);
+    }
+
+    @Override
+    public void log(String tag, String message, Throwable exception) {
+        logger.log(tag, message, exception);
+    }
+
+    @Override
+    public void error(String tag, String message) {
+        errors++;
+        logger.error(tag, message);
+    }
+
+    @Override
+    public void error(String tag, String message, Throwable exception) {
+        errors++;
+        logger.error(tag, message, exception);
+    }
+
+    @Override
+    public void debug(String tag, String message) {
+        logger.debug(tag, message);
+    }
+
+    @Override
+    public void debug(String tag, String message, Throwable exception) {
+        logger.debug(tag, message, exception);
+    }
+}
@@ -0,0 +1,35 @@
+package com.andrejlohn.flappybird.headless;
+
+import com.badlogic.gdx.backends.headless.mock.graphics.MockGraphics;
+
+/**
+ * A graphics implementation without a graphics device, which reports a fixed time between frames
+ * instead of the wall clock time. Games run this way advance by the same amount every frame, no
+ * matter how fast the frames are rendered.
+ *
+ * @version %I%, %G%
+ * @see     MockGraphics
+ */
+class FixedStepGraphics extends MockGraphics {
+
+    private final float step;
+
+    /**
+     * Creates the graphics with the given time between frames.
+     *
+     * @param step  the time between frames in seconds
+     */
+    FixedStepGraphics(float step) {
+        this.step = step;
+    }
+
+    @Override
+    public float getDeltaTime() {
+        return step;
+    }
+
+    @Override
+    public float getRawDeltaTime() {
+        return step;
+    }
+}
@@ -0,0 +1,74 @@
+package com.andrejlohn.flappybird.headless;
+
+import com.badlogic.gdx.graphics.GL20;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * An OpenGL implementation which does nothing, allowing to run the game without a graphics device.
+ * Object creation returns unique handles and shaders always compile successfully without any
+ * uniforms or attributes, all other calls are ignored.
+ *
+ * @version %I%, %G%
+ * @see     GL20
+ */
+class MockGL20 implements InvocationHandler {
+
+    private int handles;
+
+    /**
+     * Creates a new mock OpenGL instance.
+     *
+     * @return  the mock OpenGL instance
+     * @see     Proxy#newProxyInstance(ClassLoader, Class[], InvocationHandler)
+     */
+    static GL20 create() {
+        return (GL20) Proxy.newProxyInstance(
+                GL20.class.getClassLoader(),
+                new Class<?>[] { GL20.class },
+                new MockGL20());
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+
+        if(name.startsWith("glGen") || name.startsWith("glCreate")) {
+            if(method.getReturnType() == int.class) {
+                return ++handles;
+            }
+        } else if(name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) {
+            int parameter = (Integer) args[1];
+            boolean list = parameter == GL20.GL_ACTIVE_UNIFORMS
+                    || parameter == GL20.GL_ACTIVE_ATTRIBUTES;
+            ((IntBuffer) args[2]).put(0, list ? 0 : GL20.GL_TRUE);
+            return null;
+        }
+
+        return defaultValue(method.getReturnType());
+    }
+
+    /**
+     * Gets the value returned by ignored calls.
+     *
+     * @param type  the return type of the call
+     * @return      zero, false, an empty string or null
+     */
+    static Object defaultValue(Class<?> type) {
+        if(type == boolean.class) {
+            return Boolean.FALSE;
+        } else if(type == int.class) {
+            return 0;
+        } else if(type == float.class) {
+            return 0f;
+        } else if(type == long.class) {
+            return 0L;
+        } else if(type == String.class) {
+            return "";
+        }
+        return null;
+    }
+}
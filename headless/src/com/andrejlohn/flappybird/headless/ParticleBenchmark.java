@@ -0,0 +1,148 @@
+package com.andrejlohn.flappybird.headless;
+
+import com.andrejlohn.flappybird.sprites.ParticleBurst;
+import com.andrejlohn.flappybird.sprites.ParticleSystem;
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the time and memory the particle system takes per frame with thousands of live
+ * particles. Each frame a burst is emitted, all particles are updated and drawn into a sprite
+ * batch. As the game runs without a graphics device, drawing only covers filling the batch, not
+ * the rendering by the graphics device. The memory allocated by emitting, updating and drawing is
+ * measured by the thread allocation counter of the JVM and has to be zero after the first round,
+ * which warms up the JVM. The benchmark exits with status 1 on failure.
+ *
+ * @version %I%, %G%
+ * @see     ParticleSystem
+ */
+public class ParticleBenchmark extends ApplicationAdapter {
+
+    private static final int CAPACITY = 8000;
+    private static final int BURST_SIZE = 40;
+    private static final int FRAMES = 3000;
+    private static final int ROUNDS = 5;
+    private static final float STEP = 1 / 60f;
+    private static final long FRAME_NANOS = 1000000000L / 60;
+    // Live particles settle at the burst size times the lifetime in frames
+    private static final ParticleBurst BURST = new ParticleBurst(
+            90, 360, 60, 180, -600, 2, 3, Color.ORANGE);
+
+    private com.sun.management.ThreadMXBean threads;
+    private long threadId;
+    private boolean failed;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param arg   not used
+     * @see         HeadlessApplication
+     */
+    public static void main (String[] arg) {
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 0;
+        new HeadlessApplication(new ParticleBenchmark(), config);
+    }
+
+    /**
+     * Replaces graphics by a mock implementation and runs all rounds of the benchmark.
+     *
+     * @see MockGL20
+     */
+    @Override
+    public void create () {
+        Gdx.gl = Gdx.gl20 = MockGL20.create();
+        Gdx.app.setLogLevel(Application.LOG_ERROR);
+        // The mock shaders have no uniforms
+        ShaderProgram.pedantic = false;
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadId = Thread.currentThread().getId();
+
+        // Large enough to never flush while drawing the particles
+        SpriteBatch batch = new SpriteBatch(CAPACITY);
+        ParticleSystem particles = new ParticleSystem(CAPACITY);
+        for(int round=1; round<=ROUNDS; round++) {
+            System.out.println("Round " + round);
+            if(run(particles, batch) != 0 && round > 1) {
+                failed = true;
+            }
+        }
+        particles.dispose();
+        batch.dispose();
+
+        System.out.println(failed ? "Particle benchmark failed" : "Particle benchmark passed");
+        Gdx.app.exit();
+    }
+
+    /**
+     * Runs a single round of the benchmark, starting without any live particles. The beginning
+     * and end of the sprite batch are left out of the measurement, as they are part of the frame
+     * anyway and the mock graphics allocate memory.
+     *
+     * @param particles the particle system
+     * @param batch     the sprite batch to draw into
+     * @return          the number of bytes allocated
+     */
+    private long run(ParticleSystem particles, SpriteBatch batch) {
+        long updateNanos = 0, drawNanos = 0, allocated = 0;
+        long live = 0;
+        long overhead = allocatedBytes();
+        overhead = allocatedBytes() - overhead;
+
+        particles.clear();
+        for(int i=0; i<FRAMES; i++) {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            particles.emit(0, 0, BURST_SIZE, BURST);
+            particles.update(STEP);
+            long updated = System.nanoTime();
+            allocated += allocatedBytes() - bytes - overhead;
+            live += particles.getCount();
+
+            batch.begin();
+            bytes = allocatedBytes();
+            long drawStart = System.nanoTime();
+            particles.draw(batch);
+            long drawn = System.nanoTime();
+            allocated += allocatedBytes() - bytes - overhead;
+            batch.end();
+
+            updateNanos += updated - start;
+            drawNanos += drawn - drawStart;
+        }
+
+        float frameNanos = (float) (updateNanos + drawNanos) / FRAMES;
+        System.out.println(String.format(
+                "  %d live particles on average, update %.1f us, draw %.1f us per frame, "
+                        + "%.1f%% of a 60 FPS frame, %d bytes allocated",
+                live / FRAMES, updateNanos / 1000f / FRAMES, drawNanos / 1000f / FRAMES,
+                100 * frameNanos / FRAME_NANOS, allocated));
+        return allocated;
+    }
+
+    /**
+     * Exits with the benchmark result.
+     */
+    @Override
+    public void dispose () {
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Gets the number of bytes allocated by the current thread so far.
+     *
+     * @return  the allocated bytes
+     * @see     com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)
+     */
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(threadId);
+    }
+}
@@ -0,0 +1,328 @@
+package com.andrejlohn.flappybird.headless;
+
+import com.andrejlohn.flappybird.physics.BirdBody;
+import com.andrejlohn.flappybird.physics.FloatBirdBody;
+import com.andrejlohn.flappybird.physics.ReachabilityTable;
+import com.andrejlohn.flappybird.sprites.AnimationRegistry;
+import com.andrejlohn.flappybird.sprites.Bird;
+import com.andrejlohn.flappybird.sprites.Tube;
+import com.andrejlohn.flappybird.states.PlayState;
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.FloatArray;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks the reachability table of the tube course without a graphics device. At the tube spacing
+ * of the game, the table has to accept every height difference within the fluctuation range of
+ * the gaps. At a tight spacing it has to reject some of them and tubes generated at that spacing
+ * must keep within the accepted differences. The extremes of the accepted differences have to be
+ * passable by a floating point body, which is checked by a search over all sequences of jumps.
+ * Spacings too tight for any gap have to be refused when the table is created. The check exits
+ * with status 1 on failure.
+ *
+ * @version %I%, %G%
+ * @see     ReachabilityTable
+ * @see     Tube#createReachabilityTable(int, int, int, int)
+ */
+public class ReachabilityCheck extends ApplicationAdapter {
+
+    private static final int TIGHT_SPACING = 60;
+    private static final int IMPASSABLE_SPACING = 40;
+    private static final int GENERATED_TUBES = 10000;
+    private static final float STEP = 1 / 60f;
+    // Heights closer than a quarter pixel are taken as the same state by the search
+    private static final int SEARCH_RESOLUTION = 4;
+    // The band above the bottom of the gap the search starts from
+    private static final int START_HEIGHT = 5;
+
+    private int bodyWidth;
+    private int bodyHeight;
+    private int groundY;
+    private int lowestTopY;
+    private int highestTopY;
+    private boolean failed;
+
+    /**
+     * Runs the check.
+     *
+     * @param arg   not used
+     * @see         HeadlessApplication
+     */
+    public static void main (String[] arg) {
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 0;
+        new HeadlessApplication(new ReachabilityCheck(), config);
+    }
+
+    /**
+     * Replaces graphics by a mock implementation, takes the size of the player character from its
+     * animation and runs all checks.
+     *
+     * @see MockGL20
+     * @see Bird#getAnimation()
+     */
+    @Override
+    public void create () {
+        Gdx.gl = Gdx.gl20 = MockGL20.create();
+        Gdx.app.setLogLevel(Application.LOG_ERROR);
+
+        TextureRegion frame = Bird.getAnimation().getFrame(0);
+        bodyWidth = frame.getRegionWidth();
+        bodyHeight = frame.getRegionHeight();
+        groundY = PlayState.GROUND_Y;
+
+        checkGameSpacing();
+        checkTightSpacing();
+        checkImpassableSpacing();
+        AnimationRegistry.dispose();
+
+        System.out.println(failed ? "Reachability check failed" : "Reachability check passed");
+        Gdx.app.exit();
+    }
+
+    /**
+     * Checks that the table constrains nothing at the spacing of the game. The fluctuation range
+     * is taken from the heights of first tubes, which are drawn from the whole range.
+     *
+     * @see Tube#Tube(float, float, Random, ReachabilityTable, int)
+     */
+    private void checkGameSpacing() {
+        ReachabilityTable table = createTable(PlayState.TUBE_SPACING);
+        Random rand = new Random(0);
+        Tube tube = new Tube(0, Float.NaN, rand, table, PlayState.TUBE_SPACING);
+        lowestTopY = Integer.MAX_VALUE;
+        highestTopY = Integer.MIN_VALUE;
+        for(int i=0; i<GENERATED_TUBES; i++) {
+            tube.reposition(0, Float.NaN);
+            lowestTopY = Math.min(lowestTopY, (int) tube.getPosTopTube().y);
+            highestTopY = Math.max(highestTopY, (int) tube.getPosTopTube().y);
+        }
+        tube.dispose();
+
+        int range = highestTopY - lowestTopY;
+        System.out.println("Gaps fluctuate between " + lowestTopY + " and " + highestTopY);
+        report(PlayState.TUBE_SPACING, table);
+        if(table.getMinDelta(PlayState.TUBE_SPACING) > -range || table.getMaxDelta(PlayState.TUBE_SPACING) < range) {
+            fail("Differences within the fluctuation range are rejected at the game spacing");
+        }
+        checkGenerated(table, PlayState.TUBE_SPACING);
+    }
+
+    /**
+     * Checks that the table rejects some differences within the fluctuation range at a tight
+     * spacing, while the accepted extremes are passable.
+     *
+     * @see #isPassable(int, int, int)
+     */
+    private void checkTightSpacing() {
+        ReachabilityTable table = createTable(TIGHT_SPACING);
+        int range = highestTopY - lowestTopY;
+        int min = table.getMinDelta(TIGHT_SPACING);
+        int max = table.getMaxDelta(TIGHT_SPACING);
+        report(TIGHT_SPACING, table);
+        if(min <= -range && max >= range) {
+            fail("No difference within the fluctuation range is rejected at spacing " + TIGHT_SPACING);
+        }
+        checkGenerated(table, TIGHT_SPACING);
+
+        for(int delta: new int[] {Math.max(min, -range), 0, Math.min(max, range)}) {
+            if(!isPassable(TIGHT_SPACING, delta, table)) {
+                fail("Accepted difference " + delta + " can not be passed");
+            }
+        }
+        // Rejected differences may still be passable, as the table keeps a safety margin and
+        // requires the body to arrive low in the next gap
+        for(int delta: new int[] {min - 1, max + 1}) {
+            if(delta >= -range && delta <= range) {
+                System.out.println("  rejected difference " + delta + " is "
+                        + (isPassable(TIGHT_SPACING, delta, table) ? "passable" : "not passable"));
+            }
+        }
+    }
+
+    /**
+     * Checks that a table is refused for a spacing at which not even a gap at the height of the
+     * previous one can be passed.
+     *
+     * @see Tube#createReachabilityTable(int, int, int, int)
+     */
+    private void checkImpassableSpacing() {
+        try {
+            createTable(IMPASSABLE_SPACING);
+            fail("Spacing " + IMPASSABLE_SPACING + " is accepted");
+        } catch(IllegalStateException e) {
+            System.out.println("Spacing " + IMPASSABLE_SPACING + " is refused: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Generates a sequence of tubes and checks that the differences between consecutive gaps are
+     * accepted by the table.
+     *
+     * @param table     the reachability table
+     * @param spacing   the horizontal distance between the tubes
+     * @see             Tube#reposition(float, float)
+     */
+    private void checkGenerated(ReachabilityTable table, int spacing) {
+        Tube tube = new Tube(0, Float.NaN, new Random(spacing), table, spacing);
+        int lowest = Integer.MAX_VALUE, highest = Integer.MIN_VALUE;
+        for(int i=0; i<GENERATED_TUBES; i++) {
+            float previousTopY = tube.getPosTopTube().y;
+            tube.reposition(0, previousTopY);
+            int delta = (int) (tube.getPosTopTube().y - previousTopY);
+            lowest = Math.min(lowest, delta);
+            highest = Math.max(highest, delta);
+            if(!table.isPassable(spacing, delta)) {
+                fail("Generated difference " + delta + " is not accepted");
+                break;
+            }
+        }
+        tube.dispose();
+        System.out.println("  generated differences between " + lowest + " and " + highest);
+    }
+
+    /**
+     * Searches a sequence of jumps which takes a floating point body through two consecutive
+     * tubes. The body starts at rest just in front of the first tube, low in its gap, and may jump
+     * at every step. States are told apart by their height, up to the search resolution, and their
+     * velocity.
+     *
+     * @param spacing   the horizontal distance between the tubes
+     * @param delta     the height of the second gap minus the height of the first gap
+     * @param table     the reachability table to generate the tubes with
+     * @return          <code>true</code> if the body gets past the second tube
+     *                  <code>false</code> else
+     * @see             FloatBirdBody
+     * @see             Tube#collides(BirdBody)
+     * @see             Tube#readFrom(ByteBuffer)
+     */
+    private boolean isPassable(int spacing, int delta, ReachabilityTable table) {
+        int firstTopY = delta >= 0 ? lowestTopY : highestTopY;
+        float secondX = Tube.TUBE_WIDTH + spacing;
+        Tube first = createTube(0, firstTopY, table, spacing);
+        Tube second = createTube(secondX, firstTopY + delta, table, spacing);
+
+        BirdBody body = new FloatBirdBody(0, 0, bodyWidth, bodyHeight);
+        ByteBuffer state = ByteBuffer.allocate(BirdBody.SNAPSHOT_SIZE);
+        float gapBottom = first.getPosBotTube().y + first.getBottomTube().getHeight();
+        float x = -bodyWidth;
+        FloatArray heights = new FloatArray(), velocities = new FloatArray();
+        FloatArray nextHeights = new FloatArray(), nextVelocities = new FloatArray();
+        for(int i=0; i<SEARCH_RESOLUTION; i++) {
+            heights.add(gapBottom + START_HEIGHT + (float) i / SEARCH_RESOLUTION);
+            velocities.add(0);
+        }
+
+        Set<Long> seen = new HashSet<Long>();
+        while(x <= secondX + Tube.TUBE_WIDTH && heights.size > 0) {
+            seen.clear();
+            nextHeights.clear();
+            nextVelocities.clear();
+            for(int i=0; i<heights.size; i++) {
+                for(int jump=0; jump<2; jump++) {
+                    state.clear();
+                    state.putFloat(x).putFloat(heights.get(i)).putFloat(velocities.get(i)).flip();
+                    body.readFrom(state);
+                    if(jump == 1) {
+                        body.jump();
+                    }
+                    body.step(STEP);
+                    if(first.collides(body) || second.collides(body) || body.isAtOrBelow(groundY)) {
+                        continue;
+                    }
+
+                    state.clear();
+                    body.writeTo(state);
+                    state.flip();
+                    state.getFloat();
+                    float y = state.getFloat();
+                    float velocity = state.getFloat();
+                    long key = (long) Math.round(y * SEARCH_RESOLUTION) << 32 | (Math.round(velocity) & 0xffffffffL);
+                    if(seen.add(key)) {
+                        nextHeights.add(y);
+                        nextVelocities.add(velocity);
+                    }
+                }
+            }
+            x = body.getX();
+
+            FloatArray swap = heights;
+            heights = nextHeights;
+            nextHeights = swap;
+            swap = velocities;
+            velocities = nextVelocities;
+            nextVelocities = swap;
+        }
+
+        first.dispose();
+        second.dispose();
+        return heights.size > 0;
+    }
+
+    /**
+     * Creates a tube at a fixed position.
+     *
+     * @param x         the x-coordinate of the tube
+     * @param topY      the y-coordinate of the top tube
+     * @param table     the reachability table
+     * @param spacing   the horizontal distance between the tubes
+     * @return          the tube
+     * @see             Tube#readFrom(ByteBuffer)
+     */
+    private Tube createTube(float x, float topY, ReachabilityTable table, int spacing) {
+        Tube tube = new Tube(x, Float.NaN, new Random(), table, spacing);
+        ByteBuffer position = ByteBuffer.allocate(8);
+        position.putFloat(x).putFloat(topY).flip();
+        tube.readFrom(position);
+        return tube;
+    }
+
+    /**
+     * Creates the reachability table for the player character and the ground.
+     *
+     * @param spacing   the horizontal distance between the tubes
+     * @return          the reachability table
+     * @see             Tube#createReachabilityTable(int, int, int, int)
+     */
+    private ReachabilityTable createTable(int spacing) {
+        return Tube.createReachabilityTable(bodyWidth, bodyHeight, groundY, spacing);
+    }
+
+    /**
+     * Prints the accepted height differences of a spacing.
+     *
+     * @param spacing   the horizontal distance between the tubes
+     * @param table     the reachability table
+     */
+    private void report(int spacing, ReachabilityTable table) {
+        System.out.println("Spacing " + spacing + " accepts differences between "
+                + table.getMinDelta(spacing) + " and " + table.getMaxDelta(spacing));
+    }
+
+    /**
+     * Reports a failed check.
+     *
+     * @param message   the description of the failure
+     */
+    private void fail(String message) {
+        System.out.println("  FAILED: " + message);
+        failed = true;
+    }
+
+    /**
+     * Exits with the check result.
+     */
+    @Override
+    public void dispose () {
+        System.exit(failed ? 1 : 0);
+    }
+}
@@ -0,0 +1,64 @@
+package com.andrejlohn.flappybird.headless;
+
+import com.badlogic.gdx.Input;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * An input implementation driven by a script instead of a user. Only screen touches and single
+ * key presses are supported, as this is all the game reacts to.
+ *
+ * @version %I%, %G%
+ * @see     Input
+ */
+class ScriptedInput implements InvocationHandler {
+
+    private boolean touched;
+    private int pressedKey = -1;
+
+    /**
+     * Creates the input instance controlled by this script.
+     *
+     * @return  the input instance
+     * @see     Proxy#newProxyInstance(ClassLoader, Class[], InvocationHandler)
+     */
+    Input create() {
+        return (Input) Proxy.newProxyInstance(
+                Input.class.getClassLoader(),
+                new Class<?>[] { Input.class },
+                this);
+    }
+
+    /**
+     * Sets whether the screen is touched in the current frame.
+     *
+     * @param touched   <code>true</code> if the screen is touched
+     */
+    void setTouched(boolean touched) {
+        this.touched = touched;
+    }
+
+    /**
+     * Sets the key which is pressed in the current frame.
+     *
+     * @param key   the key code, -1 if no key is pressed
+     * @see         Input.Keys
+     */
+    void setPressedKey(int key) {
+        pressedKey = key;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+
+        if(name.equals("justTouched") || name.equals("isTouched")) {
+            return touched;
+        } else if(name.equals("isKeyJustPressed") || name.equals("isKeyPressed")) {
+            return (Integer) args[0] == pressedKey;
+        }
+        return MockGL20.defaultValue(method.getReturnType());
+    }
+}
@@ -0,0 +1,515 @@
+package com.andrejlohn.flappybird.headless;
+
+import com.andrejlohn.flappybird.Assets;
+import com.andrejlohn.flappybird.FlappyDemo;
+import com.andrejlohn.flappybird.ResourceTracker;
+import com.andrejlohn.flappybird.physics.BirdBody;
+import com.andrejlohn.flappybird.physics.FixedBirdBody;
+import com.andrejlohn.flappybird.physics.FloatBirdBody;
+import com.andrejlohn.flappybird.sprites.Tube;
+import com.andrejlohn.flappybird.states.GameStateManager;
+import com.andrejlohn.flappybird.states.MenuState;
+import com.andrejlohn.flappybird.states.PauseState;
+import com.andrejlohn.flappybird.states.PlayState;
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.BufferUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Long running test of the games resource management. The game is run without a graphics device
+ * through a large number of scripted cycles, each a whole lifetime of the application from
+ * create to dispose. The player character is kept within the gaps, so that it flies past several
+ * repositioned tubes. Halfway the game is paused, alternately by the pause key and by the
+ * application lifecycle. While the game is covered by the pause overlay, its world snapshot must
+ * not change. Every other cycle the application is stopped while paused during the flight, like
+ * a process killed in the background, and the next cycle has to restore exactly that game below
+ * the pause overlay. The other cycles let the player character fall to the ground, return to the
+ * menu and exit.
+ * No live native resources or asset references may be left after an exit. After a warm up,
+ * neither heap nor native memory may grow beyond a small tolerance. The test exits with status 1
+ * on failure.
+ *
+ * @version %I%, %G%
+ * @see     ResourceTracker
+ * @see     FlappyDemo
+ */
+public class SoakTest extends ApplicationAdapter {
+
+    private static final int DEFAULT_CYCLES = 2000;
+    private static final int FLIGHT_FRAMES = 600;
+    private static final int FRAMES_PER_CYCLE = 720;
+    private static final int PAUSE_FRAME = 240;
+    private static final int RESUME_FRAME = 250;
+    private static final int MIN_REPOSITIONS = 3;
+    private static final int WARM_UP_CYCLES = 100;
+    private static final int SAMPLE_INTERVAL = 200;
+    private static final float STEP = 1 / 60f;
+    // Magic number and state of the random number generator ahead of the player character
+    private static final int WORLD_HEADER_SIZE = 20;
+    // Jumping below this height above the bottom of the gap keeps clear of both tubes
+    private static final int FLAP_HEIGHT = 8;
+    private static final long HEAP_TOLERANCE = 16L * 1024 * 1024;
+    private static final long RESIDENT_TOLERANCE = 64L * 1024 * 1024;
+
+    private final int cycles;
+    private final int warmUpCycles;
+    private ScriptedInput input;
+    private CountingLogger logger;
+    private BirdBody body;
+    private ByteBuffer pausedWorld;
+    private ByteBuffer world;
+    private byte[] keptSnapshot;
+    private FlappyDemo game;
+    private int cycle;
+    private int cycleFrame;
+    private float lastTubeX;
+    private int repositions;
+    private boolean failed;
+    private boolean finished;
+    private long start;
+
+    private long baseHeap;
+    private long baseUnsafe;
+    private long baseResident;
+
+    /**
+     * Runs the soak test.
+     *
+     * @param arg   the number of cycles, 2000 if omitted
+     * @see         HeadlessApplication
+     */
+    public static void main (String[] arg) {
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 0;
+        new HeadlessApplication(
+                new SoakTest(arg.length > 0 ? Integer.parseInt(arg[0]) : DEFAULT_CYCLES),
+                config);
+    }
+
+    /**
+     * Creates the soak test.
+     *
+     * @param cycles    the number of application lifetimes
+     */
+    public SoakTest(int cycles) {
+        this.cycles = cycles;
+        warmUpCycles = Math.min(WARM_UP_CYCLES, cycles / 2);
+    }
+
+    /**
+     * Replaces graphics and input by mock implementations. The frames are timed at a fixed rate,
+     * so that the script does not depend on the speed of the machine. Errors logged by the game
+     * are counted.
+     *
+     * @see MockGL20
+     * @see FixedStepGraphics
+     * @see ScriptedInput
+     * @see CountingLogger
+     */
+    @Override
+    public void create () {
+        input = new ScriptedInput();
+        Gdx.graphics = new FixedStepGraphics(STEP);
+        Gdx.gl = Gdx.gl20 = MockGL20.create();
+        Gdx.input = input.create();
+        Gdx.app.setLogLevel(Application.LOG_ERROR);
+        logger = new CountingLogger(Gdx.app.getApplicationLogger());
+        Gdx.app.setApplicationLogger(logger);
+        // The mock shaders have no uniforms
+        ShaderProgram.pedantic = false;
+        ResourceTracker.setRecordingSites(true);
+
+        body = (FlappyDemo.FIXED_POINT_PHYSICS ? FixedBirdBody.FACTORY : FloatBirdBody.FACTORY)
+                .create(0, 0, 0, 0);
+        pausedWorld = ByteBuffer.allocate(PlayState.SNAPSHOT_SIZE);
+        world = ByteBuffer.allocate(PlayState.SNAPSHOT_SIZE);
+        start = System.nanoTime();
+    }
+
+    /**
+     * Runs a single frame of the script. The application is created on the first frame of each
+     * cycle, where a touch starts the game from the menu or continues the restored game.
+     *
+     * @see #startCycle()
+     * @see #runFrame()
+     */
+    @Override
+    public void render () {
+        if(finished) {
+            return;
+        }
+        if((cycleFrame == 0 && !startCycle()) || !runFrame()) {
+            finished = true;
+            Gdx.app.exit();
+            return;
+        }
+
+        cycleFrame++;
+        if(game == null) {
+            cycle++;
+            cycleFrame = 0;
+        }
+    }
+
+    /**
+     * Checks the resources left by the previous cycles and creates the application. If the
+     * previous application was stopped during a game, the game has to be restored below the pause
+     * overlay with exactly the world written on the stop.
+     *
+     * @return  <code>true</code> if the test continues
+     *          <code>false</code> if it has failed or is finished
+     * @see     #checkCycle(int)
+     * @see     FlappyDemo#create()
+     */
+    private boolean startCycle() {
+        if(!checkCycle(cycle)) {
+            return false;
+        }
+
+        game = new FlappyDemo();
+        game.create();
+        lastTubeX = Float.NaN;
+        repositions = 0;
+
+        if(keptSnapshot != null) {
+            ByteBuffer kept = ByteBuffer.wrap(keptSnapshot);
+            keptSnapshot = null;
+            if(!(getStateManager().peek() instanceof PauseState) || !readWorld(world)) {
+                return fail("Game not restored below the pause overlay");
+            }
+            if(!world.equals(kept)) {
+                return fail("Game changed by the restore");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Renders a single frame of the application and checks the game afterwards. During the flight,
+     * the screen is touched whenever the player character is about to sink below the next gap. The
+     * flight is interrupted by the pause overlay, which is removed by another touch.
+     *
+     * @return  <code>true</code> if the test continues
+     *          <code>false</code> else
+     * @see     #shouldFlap()
+     * @see     #checkPaused()
+     * @see     #stop(boolean)
+     */
+    private boolean runFrame() {
+        boolean flying = cycleFrame < FLIGHT_FRAMES;
+        boolean lifecyclePause = cycle % 2 == 1;
+
+        if(cycleFrame == PAUSE_FRAME && lifecyclePause) {
+            game.pause();
+            game.resume();
+        }
+        input.setPressedKey(cycleFrame == PAUSE_FRAME && !lifecyclePause ? Input.Keys.P : -1);
+        input.setTouched(cycleFrame == 0 || cycleFrame == RESUME_FRAME
+                || (flying && (cycleFrame < PAUSE_FRAME || cycleFrame > RESUME_FRAME) && shouldFlap()));
+        game.render();
+
+        if(flying) {
+            if(!readWorld(world)) {
+                return fail("Player character crashed in cycle " + cycle + " at frame " + cycleFrame);
+            }
+            countRepositions();
+        }
+        if(!checkPaused()) {
+            return false;
+        }
+
+        if(cycleFrame == FLIGHT_FRAMES - 1) {
+            if(repositions < MIN_REPOSITIONS) {
+                return fail("Only " + repositions + " tubes repositioned in cycle " + cycle);
+            }
+            if(cycle % 2 == 1) {
+                return stop(true);
+            }
+        } else if(cycleFrame == FRAMES_PER_CYCLE - 1) {
+            if(!(getStateManager().peek() instanceof MenuState)) {
+                return fail("Cycle " + cycle + " did not return to the menu");
+            }
+            return stop(false);
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the game does not change while it is covered by the pause overlay. The world
+     * snapshot is taken right after pausing and compared to the snapshot of the last paused
+     * frame.
+     *
+     * @return  <code>true</code> if the test continues
+     *          <code>false</code> else
+     * @see     GameStateManager#writeSnapshot(ByteBuffer)
+     */
+    private boolean checkPaused() {
+        if(cycleFrame == PAUSE_FRAME) {
+            if(!(getStateManager().peek() instanceof PauseState) || !readWorld(pausedWorld)) {
+                return fail("Game not paused");
+            }
+        } else if(cycleFrame == RESUME_FRAME - 1) {
+            if(!world.equals(pausedWorld)) {
+                return fail("Game changed while paused");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the application like the system does, by pausing and disposing it. A killed
+     * application is not disposed by the system, but as the test runs in a single process, it
+     * disposes the application anyway and keeps the snapshot file, which a regular exit deletes.
+     * Either way there must not be any live resources left and no assets may have been left in
+     * use, which the asset loader logs as errors.
+     *
+     * @param killed    <code>true</code> if the application is killed while paused
+     * @return          <code>true</code> if the test continues
+     *                  <code>false</code> else
+     * @see             FlappyDemo#pause()
+     * @see             FlappyDemo#dispose()
+     * @see             FlappyDemo#SNAPSHOT_FILE
+     */
+    private boolean stop(boolean killed) {
+        FileHandle file = Gdx.files.local(FlappyDemo.SNAPSHOT_FILE);
+
+        game.pause();
+        if(killed) {
+            if(!file.exists()) {
+                return fail("No snapshot written in cycle " + cycle);
+            }
+            keptSnapshot = file.readBytes();
+        }
+        game.dispose();
+        game = null;
+        if(killed) {
+            file.writeBytes(keptSnapshot, false);
+        }
+
+        if(ResourceTracker.getLiveCount() != 0 || Assets.getReferenceCount() != 0
+                || logger.getErrorCount() != 0) {
+            return fail("Resources left after the exit in cycle " + cycle);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the player character has to jump to stay within the next gap. The next gap
+     * belongs to the first tube the player character has not passed yet.
+     *
+     * @return  <code>true</code> if the player character is low in the next gap
+     *          <code>false</code> else, or if there is no game in play
+     * @see     PlayState#writeSnapshot(ByteBuffer)
+     * @see     #readBody()
+     */
+    private boolean shouldFlap() {
+        if(!readWorld(world)) {
+            return false;
+        }
+
+        readBody();
+        float nextTubeX = Float.MAX_VALUE;
+        float gapBottom = 0;
+        while(world.hasRemaining()) {
+            float x = world.getFloat();
+            float topY = world.getFloat();
+            if(x + Tube.TUBE_WIDTH > body.getX() && x < nextTubeX) {
+                nextTubeX = x;
+                gapBottom = topY - Tube.TUBE_GAP;
+            }
+        }
+        world.rewind();
+
+        return body.getY() < gapBottom + FLAP_HEIGHT;
+    }
+
+    /**
+     * Counts the tubes repositioned since the last frame. A repositioned tube is placed ahead of
+     * all other tubes.
+     *
+     * @see #readBody()
+     */
+    private void countRepositions() {
+        readBody();
+        float frontX = Float.NEGATIVE_INFINITY;
+        while(world.hasRemaining()) {
+            frontX = Math.max(frontX, world.getFloat());
+            world.getFloat();
+        }
+        world.rewind();
+
+        if(frontX > lastTubeX) {
+            repositions++;
+        }
+        lastTubeX = frontX;
+    }
+
+    /**
+     * Reads the player character from the world snapshot, which is left at the first tube.
+     *
+     * @see BirdBody#readFrom(ByteBuffer)
+     */
+    private void readBody() {
+        world.position(WORLD_HEADER_SIZE);
+        body.readFrom(world);
+        // Skips the animation time and the ground positions
+        world.position(world.position() + 12);
+    }
+
+    /**
+     * Reads the world snapshot of the game in play.
+     *
+     * @param buffer    the snapshot buffer, ready to be read afterwards
+     * @return          <code>true</code> if a snapshot was written
+     *                  <code>false</code> if there is no game in play or it is over
+     * @see             GameStateManager#writeSnapshot(ByteBuffer)
+     */
+    private boolean readWorld(ByteBuffer buffer) {
+        buffer.clear();
+        boolean written = getStateManager().writeSnapshot(buffer);
+        buffer.flip();
+        return written;
+    }
+
+    /**
+     * Gets the state manager of the running application.
+     *
+     * @return  the game state manager
+     * @see     FlappyDemo#getStateManager()
+     */
+    private GameStateManager getStateManager() {
+        return game.getStateManager();
+    }
+
+    /**
+     * Checks the memory after a number of completed cycles. The baseline is taken after the warm
+     * up, later samples are compared to it.
+     *
+     * @param completed the number of completed cycles
+     * @return          <code>true</code> if the test continues
+     *                  <code>false</code> if it has failed or is finished
+     */
+    private boolean checkCycle(int completed) {
+        if(ResourceTracker.getInvalidDisposals() != 0) {
+            return fail(ResourceTracker.getInvalidDisposals() + " resources disposed twice");
+        }
+
+        if(completed == warmUpCycles) {
+            baseHeap = usedHeap();
+            baseUnsafe = BufferUtils.getAllocatedBytesUnsafe();
+            baseResident = residentMemory();
+            System.out.println("Baseline after " + completed + " cycles: " + baseHeap
+                    + " bytes heap, " + baseUnsafe + " bytes native buffers, " + baseResident
+                    + " bytes resident");
+        } else if(completed > warmUpCycles
+                && (completed % SAMPLE_INTERVAL == 0 || completed == cycles)) {
+            long heap = usedHeap();
+            long unsafe = BufferUtils.getAllocatedBytesUnsafe();
+            long resident = residentMemory();
+            System.out.println(String.format(
+                    "%d cycles in %.1f s: %d bytes heap, %d bytes native buffers, "
+                            + "%d bytes resident",
+                    completed, (System.nanoTime() - start) / 1e9, heap, unsafe, resident));
+
+            if(unsafe > baseUnsafe) {
+                return fail("Native buffers grew by " + (unsafe - baseUnsafe) + " bytes");
+            }
+            if(heap > baseHeap + HEAP_TOLERANCE) {
+                return fail("Heap grew by " + (heap - baseHeap) + " bytes");
+            }
+            if(baseResident >= 0 && resident > baseResident + RESIDENT_TOLERANCE) {
+                return fail("Resident memory grew by " + (resident - baseResident) + " bytes");
+            }
+        }
+
+        if(completed == cycles) {
+            System.out.println("Soak test passed");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reports a failure together with all live resources.
+     *
+     * @param message   the failure
+     * @return          <code>false</code>
+     * @see             ResourceTracker#report()
+     */
+    private boolean fail(String message) {
+        failed = true;
+        System.out.println("Soak test failed: " + message);
+        System.out.print(ResourceTracker.report());
+        return false;
+    }
+
+    /**
+     * Disposes an application still running after a failure, which must leave no live resources
+     * behind, deletes a kept snapshot file and exits with the test result.
+     *
+     * @see FlappyDemo#dispose()
+     */
+    @Override
+    public void dispose () {
+        if(game != null) {
+            game.dispose();
+        }
+        Gdx.files.local(FlappyDemo.SNAPSHOT_FILE).delete();
+
+        if(!failed && ResourceTracker.getLiveCount() != 0) {
+            fail("Resources left after shutdown");
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Gets the used heap memory after a garbage collection.
+     *
+     * @return  the used heap memory in bytes
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for(int i=0; i<3; i++) {
+            runtime.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Gets the resident memory of the process, which includes all native memory. This is only
+     * available on Linux.
+     *
+     * @return  the resident memory in bytes, -1 if not available
+     */
+    private static long residentMemory() {
+        File statm = new File("/proc/self/statm");
+
+        if(!statm.exists()) {
+            return -1;
+        }
+
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(statm));
+            try {
+                return Long.parseLong(reader.readLine().split(" ")[1]) * 4096;
+            } finally {
+                reader.close();
+            }
+        } catch(IOException e) {
+            return -1;
+        }
+    }
+}
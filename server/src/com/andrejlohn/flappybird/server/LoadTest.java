@@ -0,0 +1,132 @@
+package com.andrejlohn.flappybird.server;
+
+import com.andrejlohn.flappybird.net.RaceClient;
+import com.andrejlohn.flappybird.net.RaceProtocol;
+import com.andrejlohn.flappybird.physics.BirdBody;
+import com.andrejlohn.flappybird.physics.FloatBirdBody;
+import com.badlogic.gdx.math.RandomXS128;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test of the race server with a large number of simulated clients. Every client flies a
+ * player character which jumps whenever it falls below its own cruising height and dies from time
+ * to time. Unless a server address is given, a server is started in the same process, which
+ * reports its tick time while the test is running. At the end, the bandwidth per client is
+ * reported as measured by the clients.
+ *
+ * @version %I%, %G%
+ * @see     RaceServer
+ * @see     RaceClient
+ */
+public class LoadTest {
+
+    private static final int DEFAULT_CLIENTS = 300;
+    private static final int DEFAULT_SECONDS = 30;
+    private static final float STEP = 1f / RaceProtocol.TICK_RATE;
+    private static final long STEP_NANOS = 1000000000L / RaceProtocol.TICK_RATE;
+    private static final int BIRD_WIDTH = 34;
+    private static final int BIRD_HEIGHT = 24;
+    private static final int MIN_DEATH_DISTANCE = 500;
+    private static final int MAX_DEATH_DISTANCE = 3000;
+
+    private LoadTest() {
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param arg           the number of clients (300 if omitted), the duration in seconds (30 if
+     *                      omitted) and the address of the server (a local server if omitted)
+     * @throws IOException  if the network fails
+     * @throws InterruptedException if interrupted while waiting for the local server to stop
+     */
+    public static void main (String[] arg) throws IOException, InterruptedException {
+        int clientCount = arg.length > 0 ? Integer.parseInt(arg[0]) : DEFAULT_CLIENTS;
+        int seconds = arg.length > 1 ? Integer.parseInt(arg[1]) : DEFAULT_SECONDS;
+        String address = arg.length > 2 ? arg[2] : "localhost:" + RaceProtocol.DEFAULT_PORT;
+
+        RaceServer server = null;
+        Thread serverThread = null;
+        if(arg.length <= 2) {
+            server = new RaceServer(RaceProtocol.DEFAULT_PORT);
+            serverThread = new Thread(server, "Race server");
+            serverThread.start();
+        }
+
+        RandomXS128 rand = new RandomXS128();
+        RaceClient[] clients = new RaceClient[clientCount];
+        BirdBody[] bodies = new BirdBody[clientCount];
+        int[] cruisingHeights = new int[clientCount];
+        int[] deathDistances = new int[clientCount];
+        int[] deadTicks = new int[clientCount];
+        for(int i=0; i<clientCount; i++) {
+            clients[i] = new RaceClient(address);
+            bodies[i] = new FloatBirdBody(50, 300, BIRD_WIDTH, BIRD_HEIGHT);
+            cruisingHeights[i] = 100 + rand.nextInt(200);
+            deathDistances[i] = MIN_DEATH_DISTANCE + rand.nextInt(MAX_DEATH_DISTANCE - MIN_DEATH_DISTANCE);
+        }
+
+        System.out.println("Running " + clientCount + " clients against " + address + " for "
+                + seconds + " s");
+        long next = System.nanoTime();
+        long visible = 0;
+        int ticks = seconds * RaceProtocol.TICK_RATE;
+        for(int tick=0; tick<ticks; tick++) {
+            for(int i=0; i<clientCount; i++) {
+                RaceClient client = clients[i];
+                client.update(STEP);
+                if(!client.isJoined()) {
+                    continue;
+                }
+
+                BirdBody body = bodies[i];
+                if(deadTicks[i] > 0) {
+                    // Starts over after a second, like a player returning from the menu
+                    if(--deadTicks[i] == 0) {
+                        bodies[i] = body = new FloatBirdBody(50, 300, BIRD_WIDTH, BIRD_HEIGHT);
+                    }
+                } else {
+                    body.step(STEP);
+                    if(body.getY() < cruisingHeights[i]) {
+                        body.jump();
+                    }
+                    if(body.getX() > deathDistances[i]) {
+                        deadTicks[i] = RaceProtocol.TICK_RATE;
+                        deathDistances[i] = MIN_DEATH_DISTANCE + rand.nextInt(MAX_DEATH_DISTANCE - MIN_DEATH_DISTANCE);
+                    }
+                }
+                client.setPlayerState(body.getX(), body.getY(), deadTicks[i] == 0);
+                visible += client.getRemoteCount();
+            }
+
+            next += STEP_NANOS;
+            long wait;
+            while((wait = next - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+
+        long sent = 0, received = 0;
+        int joined = 0;
+        for(RaceClient client: clients) {
+            sent += client.getBytesSent();
+            received += client.getBytesReceived();
+            if(client.isJoined()) {
+                joined++;
+            }
+            client.dispose();
+        }
+        System.out.println(String.format(
+                "%d of %d clients joined, %.0f bytes sent and %.0f bytes received per client per "
+                        + "second, %.1f remote players visible on average",
+                joined, clientCount, (float) sent / clientCount / seconds,
+                (float) received / clientCount / seconds, (float) visible / clientCount / ticks));
+
+        if(server != null) {
+            server.stop();
+            serverThread.join();
+        }
+    }
+}
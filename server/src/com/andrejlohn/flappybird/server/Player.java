@@ -0,0 +1,71 @@
+package com.andrejlohn.flappybird.server;
+
+import com.andrejlohn.flappybird.net.RaceProtocol;
+import com.andrejlohn.flappybird.net.RaceSnapshot;
+
+import java.net.SocketAddress;
+
+/**
+ * A player taking part in a race, as seen by the server. Besides the latest state of the players
+ * character, the server keeps the recent snapshots sent to the player, so that it can encode the
+ * next snapshot against the one the player has acknowledged.
+ *
+ * @version %I%, %G%
+ * @see     RaceServer
+ */
+class Player {
+
+    final int id;
+    final SocketAddress address;
+
+    int lastSequence;
+    int lastHeard;
+    int ackTick;
+    int x, y;
+    boolean alive;
+
+    private final RaceSnapshot[] sent = new RaceSnapshot[RaceProtocol.HISTORY];
+
+    /**
+     * Creates a player who has just joined.
+     *
+     * @param id        the player id
+     * @param address   the address of the players client
+     * @param tick      the current server tick
+     */
+    Player(int id, SocketAddress address, int tick) {
+        this.id = id;
+        this.address = address;
+        lastHeard = tick;
+
+        for(int i=0; i<sent.length; i++) {
+            sent[i] = new RaceSnapshot();
+        }
+    }
+
+    /**
+     * Gets the snapshot to be sent at the given tick. This overwrites the oldest snapshot sent.
+     *
+     * @param tick  the server tick
+     * @return      the empty snapshot
+     */
+    RaceSnapshot nextSnapshot(int tick) {
+        RaceSnapshot snapshot = sent[(tick / RaceProtocol.SEND_INTERVAL) % sent.length];
+        snapshot.clear(tick);
+        return snapshot;
+    }
+
+    /**
+     * Gets the latest snapshot the player has acknowledged.
+     *
+     * @return  the acknowledged snapshot, <code>null</code> if there is none or it is too old
+     */
+    RaceSnapshot getBaseline() {
+        if(ackTick == 0) {
+            return null;
+        }
+
+        RaceSnapshot snapshot = sent[(ackTick / RaceProtocol.SEND_INTERVAL) % sent.length];
+        return snapshot.getTick() == ackTick ? snapshot : null;
+    }
+}
@@ -0,0 +1,392 @@
+package com.andrejlohn.flappybird.server;
+
+import com.andrejlohn.flappybird.net.RaceProtocol;
+import com.andrejlohn.flappybird.net.RaceSnapshot;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The authoritative server of a multiplayer race. The server hands out player ids and the seed of
+ * the tube course, keeps the race clock and decides which players every client gets to see. Each
+ * client simulates its own player character and reports its state, the server relays the states
+ * of the nearest other players to it as delta compressed snapshots.
+ * The server runs headless with a fixed tick rate on a single thread and reports its tick time and
+ * bandwidth regularly.
+ *
+ * @version %I%, %G%
+ * @see     RaceProtocol
+ * @see     Player
+ */
+public class RaceServer implements Runnable {
+
+    private static final long TICK_NANOS = 1000000000L / RaceProtocol.TICK_RATE;
+    private static final int TIMEOUT_TICKS = 5 * RaceProtocol.TICK_RATE;
+    private static final int REPORT_TICKS = 5 * RaceProtocol.TICK_RATE;
+    private static final int MAX_PLAYERS = 1024;
+    private static final int RECEIVE_BUFFER_SIZE = 1 << 20;
+
+    private final DatagramChannel channel;
+    private final long courseSeed;
+    private final ByteBuffer packet = ByteBuffer.allocate(RaceProtocol.MAX_PACKET_SIZE);
+    private final Player[] players = new Player[MAX_PLAYERS];
+    private final ObjectMap<SocketAddress, Player> addresses = new ObjectMap<SocketAddress, Player>();
+    private final Player[] byPosition = new Player[MAX_PLAYERS];
+    private final int[] visible = new int[RaceProtocol.MAX_VISIBLE];
+    private int playerCount;
+    private int tick;
+    private volatile boolean running;
+
+    private long bytesIn, bytesOut;
+    private long tickNanos, maxTickNanos;
+    private int measuredTicks;
+
+    /**
+     * Runs the race server until the process is stopped.
+     *
+     * @param arg           the port, {@link RaceProtocol#DEFAULT_PORT} if omitted
+     * @throws IOException  if the port can not be bound
+     */
+    public static void main (String[] arg) throws IOException {
+        int port = arg.length > 0 ? Integer.parseInt(arg[0]) : RaceProtocol.DEFAULT_PORT;
+        RaceServer server = new RaceServer(port);
+
+        System.out.println("Race server listening on port " + port);
+        server.run();
+    }
+
+    /**
+     * Creates the server with a random tube course.
+     *
+     * @param port          the UDP port to listen on
+     * @throws IOException  if the port can not be bound
+     * @see                 java.net.DatagramSocket#bind(SocketAddress)
+     */
+    public RaceServer(int port) throws IOException {
+        courseSeed = new RandomXS128().nextLong();
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().setReceiveBufferSize(RECEIVE_BUFFER_SIZE);
+        channel.socket().bind(new InetSocketAddress(port));
+    }
+
+    /**
+     * Runs the server ticks at the fixed tick rate until the server is stopped. After a long stall
+     * the server does not try to catch up, but continues from the current time.
+     *
+     * @see #tick()
+     * @see #stop()
+     */
+    @Override
+    public void run() {
+        long next = System.nanoTime();
+        running = true;
+
+        try {
+            while(running) {
+                tick();
+                if(tick % REPORT_TICKS == 0) {
+                    System.out.println(report());
+                }
+
+                next += TICK_NANOS;
+                if(System.nanoTime() - next > TICK_NANOS * RaceProtocol.TICK_RATE) {
+                    next = System.nanoTime();
+                }
+
+                long wait;
+                while(running && (wait = next - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+        } catch(IOException e) {
+            throw new IllegalStateException("Race server failed", e);
+        } finally {
+            try {
+                channel.close();
+            } catch(IOException e) {
+                // Nothing left to clean up
+            }
+        }
+    }
+
+    /**
+     * Stops the server after the current tick.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Runs a single server tick. All pending packets are handled, silent players are dropped and
+     * on every {@link RaceProtocol#SEND_INTERVAL}th tick the snapshots are sent.
+     *
+     * @throws IOException  if the network fails
+     * @see                 #receive()
+     * @see                 #sendSnapshots()
+     */
+    public void tick() throws IOException {
+        long start = System.nanoTime();
+
+        tick++;
+        receive();
+        for(int i=0; i<players.length; i++) {
+            if(players[i] != null && tick - players[i].lastHeard > TIMEOUT_TICKS) {
+                remove(players[i]);
+            }
+        }
+        if(tick % RaceProtocol.SEND_INTERVAL == 0) {
+            sendSnapshots();
+        }
+
+        long time = System.nanoTime() - start;
+        tickNanos += time;
+        maxTickNanos = Math.max(maxTickNanos, time);
+        measuredTicks++;
+    }
+
+    /**
+     * Handles all datagrams waiting in the channel. Packets of unknown players, packets from
+     * other addresses than the players own and outdated states are ignored.
+     *
+     * @throws IOException  if the network fails
+     * @see                 DatagramChannel#receive(ByteBuffer)
+     */
+    private void receive() throws IOException {
+        SocketAddress address;
+
+        while(true) {
+            packet.clear();
+            if((address = channel.receive(packet)) == null) {
+                return;
+            }
+            bytesIn += packet.position();
+            packet.flip();
+
+            try {
+                byte type = packet.get();
+                if(type == RaceProtocol.JOIN) {
+                    if(RaceProtocol.getVarInt(packet) == RaceProtocol.VERSION) {
+                        join(address);
+                    }
+                    continue;
+                }
+
+                Player player = find(RaceProtocol.getVarInt(packet), address);
+                if(player == null) {
+                    continue;
+                }
+                if(type == RaceProtocol.STATE) {
+                    int sequence = RaceProtocol.getVarInt(packet);
+                    int ackTick = RaceProtocol.getVarInt(packet);
+                    int x = RaceProtocol.getSignedVarInt(packet);
+                    int y = RaceProtocol.getSignedVarInt(packet);
+                    boolean alive = packet.get() != 0;
+                    if(sequence <= player.lastSequence || ackTick > tick) {
+                        continue;
+                    }
+
+                    player.lastSequence = sequence;
+                    player.lastHeard = tick;
+                    player.ackTick = ackTick;
+                    player.x = x;
+                    player.y = y;
+                    player.alive = alive;
+                } else if(type == RaceProtocol.LEAVE) {
+                    remove(player);
+                }
+            } catch(BufferUnderflowException e) {
+                // Truncated packets are dropped like lost packets
+            } catch(IllegalArgumentException e) {
+                // Malformed packets are dropped like lost packets
+            }
+        }
+    }
+
+    /**
+     * Adds a player to the race, unless the address has joined already or the race is full, and
+     * welcomes it. A repeated join is welcomed again, as the first welcome may have been lost.
+     *
+     * @param address       the address of the joining client
+     * @throws IOException  if the network fails
+     */
+    private void join(SocketAddress address) throws IOException {
+        Player player = addresses.get(address);
+
+        if(player == null) {
+            int id = 0;
+            while(id < players.length && players[id] != null) {
+                id++;
+            }
+            if(id == players.length) {
+                return;
+            }
+
+            player = new Player(id, address, tick);
+            players[id] = player;
+            addresses.put(address, player);
+            byPosition[playerCount++] = player;
+        }
+
+        packet.clear();
+        packet.put(RaceProtocol.WELCOME);
+        RaceProtocol.putVarInt(packet, player.id);
+        packet.putLong(courseSeed);
+        send(player);
+    }
+
+    /**
+     * Finds the player with the given id, provided the packet came from the players address.
+     *
+     * @param id        the player id
+     * @param address   the sender of the packet
+     * @return          the player, <code>null</code> if there is no such player
+     */
+    private Player find(int id, SocketAddress address) {
+        if(id < 0 || id >= players.length) {
+            return null;
+        }
+
+        Player player = players[id];
+        return player != null && player.address.equals(address) ? player : null;
+    }
+
+    /**
+     * Removes a player from the race.
+     *
+     * @param player    the player to remove
+     */
+    private void remove(Player player) {
+        players[player.id] = null;
+        addresses.remove(player.address);
+        for(int i=0; i<playerCount; i++) {
+            if(byPosition[i] == player) {
+                byPosition[i] = byPosition[--playerCount];
+                byPosition[playerCount] = null;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Sends every player a snapshot of the other players closest to it along the course. The
+     * players are sorted by their position first, which is cheap as their order hardly changes
+     * between two snapshots.
+     *
+     * @throws IOException  if the network fails
+     * @see                 RaceSnapshot#writeTo(ByteBuffer, RaceSnapshot)
+     */
+    private void sendSnapshots() throws IOException {
+        for(int i=1; i<playerCount; i++) {
+            Player player = byPosition[i];
+            int j = i - 1;
+            while(j >= 0 && byPosition[j].x > player.x) {
+                byPosition[j + 1] = byPosition[j];
+                j--;
+            }
+            byPosition[j + 1] = player;
+        }
+
+        for(int i=0; i<playerCount; i++) {
+            Player player = byPosition[i];
+            if(player.lastSequence == 0) {
+                continue;
+            }
+
+            RaceSnapshot snapshot = player.nextSnapshot(tick);
+            int count = findVisible(i);
+            for(int j=0; j<count; j++) {
+                Player other = players[visible[j]];
+                snapshot.add(other.id, other.x, other.y, other.alive);
+            }
+
+            packet.clear();
+            packet.put(RaceProtocol.SNAPSHOT);
+            snapshot.writeTo(packet, player.getBaseline());
+            send(player);
+        }
+    }
+
+    /**
+     * Finds the other players closest to a player along the course, up to
+     * {@link RaceProtocol#MAX_VISIBLE}. Players who have not reported their state yet are left
+     * out.
+     *
+     * @param index the index of the player in the position order
+     * @return      the number of visible players, whose ids are stored in ascending order
+     */
+    private int findVisible(int index) {
+        int x = byPosition[index].x;
+        int left = index - 1, right = index + 1;
+        int count = 0;
+
+        while(count < visible.length && (left >= 0 || right < playerCount)) {
+            Player other;
+            if(right >= playerCount
+                    || (left >= 0 && x - byPosition[left].x <= byPosition[right].x - x)) {
+                other = byPosition[left--];
+            } else {
+                other = byPosition[right++];
+            }
+            if(other.lastSequence == 0) {
+                continue;
+            }
+
+            int j = count++;
+            while(j > 0 && visible[j - 1] > other.id) {
+                visible[j] = visible[j - 1];
+                j--;
+            }
+            visible[j] = other.id;
+        }
+        return count;
+    }
+
+    /**
+     * Sends the packet buffer to a player.
+     *
+     * @param player        the receiving player
+     * @throws IOException  if the network fails
+     * @see                 DatagramChannel#send(ByteBuffer, SocketAddress)
+     */
+    private void send(Player player) throws IOException {
+        packet.flip();
+        bytesOut += channel.send(packet, player.address);
+    }
+
+    /**
+     * Gets the number of players in the race.
+     *
+     * @return  the number of players
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Summarizes the tick time and bandwidth since the last report and starts a new measurement.
+     *
+     * @return  the report
+     */
+    public String report() {
+        float seconds = (float) Math.max(measuredTicks, 1) / RaceProtocol.TICK_RATE;
+        int clients = Math.max(playerCount, 1);
+        String report = String.format(
+                "%d players, tick %.1f us average, %.1f us max, %.0f bytes in and %.0f bytes out "
+                        + "per client per second",
+                playerCount, tickNanos / 1000f / seconds / RaceProtocol.TICK_RATE, maxTickNanos / 1000f,
+                bytesIn / seconds / clients, bytesOut / seconds / clients);
+
+        bytesIn = bytesOut = 0;
+        tickNanos = maxTickNanos = 0;
+        measuredTicks = 0;
+        return report;
+    }
+}